@@ -1,6 +1,5 @@
 package com.github.gfx.googleplaces.demo;
 
-import android.graphics.Bitmap;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
 import android.util.Log;
@@ -104,8 +103,12 @@ public class ItemDetailFragment extends Fragment {
     }
 
     private class PlaceListAdapter extends ArrayAdapter<Place> {
+        // the views are not laid out yet when they are bound, so the size comes from the layout
+        private final int iconSize;
+
         public PlaceListAdapter() {
             super(getActivity(), 0);
+            iconSize = getResources().getDimensionPixelSize(R.dimen.icon_size);
         }
 
         public void setPlaceList(List<Place> placeList) {
@@ -126,13 +129,7 @@ public class ItemDetailFragment extends Fragment {
 
             final Place place = getItem(position);
 
-            viewHolder.icon.setImageResource(R.drawable.ic_noimage);
-            places.getIconBitmap(place, new GooglePlaces.OnGetIconListener() {
-                @Override
-                public void onGetIcon(Bitmap bitmap) {
-                    viewHolder.icon.setImageBitmap(bitmap);
-                }
-            });
+            places.loadIcon(place, viewHolder.icon, iconSize, iconSize, R.drawable.ic_noimage);
 
             if (place.name != null) {
                 viewHolder.name.setText(place.name);
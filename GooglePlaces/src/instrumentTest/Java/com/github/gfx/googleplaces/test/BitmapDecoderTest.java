@@ -0,0 +1,65 @@
+package com.github.gfx.googleplaces.test;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.test.AndroidTestCase;
+
+import com.github.gfx.googleplaces.BitmapDecoder;
+
+import java.io.ByteArrayOutputStream;
+
+public class BitmapDecoderTest extends AndroidTestCase {
+    static byte[] createPng(int width, int height) {
+        final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        bitmap.recycle();
+        return out.toByteArray();
+    }
+
+    public void testDownsamplesToRequestedSize() {
+        final BitmapDecoder decoder = new BitmapDecoder();
+        final byte[] data = createPng(100, 80);
+
+        final Bitmap full = decoder.decode(data, 0, 0);
+        assertEquals(100, full.getWidth());
+        assertEquals(80, full.getHeight());
+
+        final Bitmap quarter = decoder.decode(data, 25, 20);
+        assertEquals(25, quarter.getWidth());
+        assertEquals(20, quarter.getHeight());
+
+        final Bitmap half = decoder.decode(data, 30, 30);
+        assertEquals("not smaller than requested", 50, half.getWidth());
+        assertEquals(40, half.getHeight());
+    }
+
+    public void testNotAnImage() {
+        assertNull(new BitmapDecoder().decode(new byte[]{1, 2, 3}, 0, 0));
+    }
+
+    public void testImmutableByDefault() {
+        final BitmapDecoder decoder = new BitmapDecoder();
+        final Bitmap bitmap = decoder.decode(createPng(10, 10), 0, 0);
+
+        assertFalse(bitmap.isMutable());
+        decoder.addReusableBitmap(bitmap);
+        assertEquals("immutable bitmaps are not reused", 0, decoder.getReusableBitmapCount());
+    }
+
+    public void testReusesBitmaps() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
+            return;
+        }
+        final BitmapDecoder decoder = new BitmapDecoder().setReuseBitmaps(true);
+        final byte[] data = createPng(10, 10);
+
+        final Bitmap released = decoder.decode(data, 0, 0);
+        assertTrue(released.isMutable());
+        decoder.addReusableBitmap(released);
+        assertEquals(1, decoder.getReusableBitmapCount());
+
+        assertSame(released, decoder.decode(data, 0, 0));
+        assertEquals(0, decoder.getReusableBitmapCount());
+    }
+}
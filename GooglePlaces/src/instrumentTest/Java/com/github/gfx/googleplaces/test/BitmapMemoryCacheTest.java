@@ -0,0 +1,62 @@
+package com.github.gfx.googleplaces.test;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.test.AndroidTestCase;
+
+import com.github.gfx.googleplaces.BitmapMemoryCache;
+
+public class BitmapMemoryCacheTest extends AndroidTestCase {
+    // 400 bytes in ARGB_8888
+    private static Bitmap createBitmap() {
+        return Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+    }
+
+    public void testSizeOf() {
+        assertEquals(400, BitmapMemoryCache.sizeOf(createBitmap()));
+    }
+
+    public void testEvictsLeastRecentlyUsedBySize() {
+        final BitmapMemoryCache cache = new BitmapMemoryCache(1000);
+
+        cache.put("a", createBitmap());
+        cache.put("b", createBitmap());
+        assertNotNull(cache.get("a"));
+        cache.put("c", createBitmap());
+
+        assertNull("the least recently used bitmap is evicted", cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertEquals(800, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+
+        cache.put("a", createBitmap());
+        assertEquals("a replaced bitmap is not counted twice", 800, cache.getSize());
+
+        cache.put("large", Bitmap.createBitmap(20, 20, Bitmap.Config.ARGB_8888));
+        assertNull("a bitmap larger than the cache is not kept", cache.get("large"));
+        assertEquals(800, cache.getSize());
+
+        cache.remove("a");
+        assertEquals(400, cache.getSize());
+        assertEquals(1, cache.getCount());
+    }
+
+    public void testTrimMemory() {
+        final BitmapMemoryCache cache = new BitmapMemoryCache(10000);
+        for (int i = 0; i < 4; i++) {
+            cache.put("bitmap" + i, createBitmap());
+        }
+
+        cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertEquals("not low on memory yet", 1600, cache.getSize());
+
+        cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertEquals("halved", 800, cache.getSize());
+        assertNotNull("the most recently used ones are kept", cache.get("bitmap3"));
+
+        cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_MODERATE);
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getCount());
+    }
+}
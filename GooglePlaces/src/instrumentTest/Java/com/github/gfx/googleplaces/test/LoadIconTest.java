@@ -0,0 +1,158 @@
+package com.github.gfx.googleplaces.test;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.test.AndroidTestCase;
+import android.widget.ImageView;
+
+import com.github.gfx.googleplaces.GooglePlaces;
+import com.github.gfx.googleplaces.Place;
+import com.github.gfx.googleplaces.R;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class LoadIconTest extends AndroidTestCase {
+    private static final String ICON_URL = "http://maps.gstatic.com/mapfiles/place_api/icons/generic_business-71.png";
+
+    private GooglePlaces client;
+
+    private ImageView imageView;
+
+    @Override
+    public void setUp() throws Exception {
+        final byte[] icon = BitmapDecoderTest.createPng(100, 100);
+        client = new GooglePlaces("XXX", new MockHttpTransport() {
+            @Override
+            public LowLevelHttpRequest buildRequest(String method, final String url) throws IOException {
+                return new MockLowLevelHttpRequest() {
+                    @Override
+                    public LowLevelHttpResponse execute() throws IOException {
+                        final MockLowLevelHttpResponse response = new MockLowLevelHttpResponse();
+                        if (url.equals(ICON_URL)) {
+                            response.setContentType("image/png");
+                            response.setContent(new ByteArrayInputStream(icon));
+                        } else {
+                            response.setStatusCode(404);
+                        }
+                        return response;
+                    }
+                };
+            }
+        });
+        imageView = onMainThread(new Callable<ImageView>() {
+            @Override
+            public ImageView call() {
+                return new ImageView(getContext());
+            }
+        });
+    }
+
+    // views must be touched in the main thread, while tests run in the instrumentation thread
+    private static <T> T onMainThread(final Callable<T> callable) throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<T> result = new AtomicReference<>();
+        final AtomicReference<Exception> error = new AtomicReference<>();
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    result.set(callable.call());
+                } catch (Exception e) {
+                    error.set(e);
+                }
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return result.get();
+    }
+
+    private void loadIcon(final String icon, final int placeholderId) throws Exception {
+        onMainThread(new Callable<Void>() {
+            @Override
+            public Void call() {
+                final Place place = new Place();
+                place.icon = icon;
+                client.loadIcon(place, imageView, 25, 25, placeholderId);
+                return null;
+            }
+        });
+    }
+
+    // waits until no load is in progress for the view, and returns its drawable
+    private Drawable awaitLoaded() throws Exception {
+        final long deadline = System.currentTimeMillis() + 10 * 1000;
+        while (System.currentTimeMillis() < deadline) {
+            final Object tag = onMainThread(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    return imageView.getTag(R.id.googleplaces_icon_call);
+                }
+            });
+            if (tag == null) {
+                return onMainThread(new Callable<Drawable>() {
+                    @Override
+                    public Drawable call() {
+                        return imageView.getDrawable();
+                    }
+                });
+            }
+            Thread.sleep(10);
+        }
+        fail("loadIcon finishes");
+        return null;
+    }
+
+    public void testLoadsDownsampledIcon() throws Exception {
+        loadIcon(ICON_URL, 0);
+
+        final Bitmap bitmap = ((BitmapDrawable) awaitLoaded()).getBitmap();
+        assertEquals(25, bitmap.getWidth());
+        assertEquals(25, bitmap.getHeight());
+    }
+
+    public void testClearsRecycledView() throws Exception {
+        loadIcon(ICON_URL, 0);
+        assertNotNull(awaitLoaded());
+
+        loadIcon(null, 0);
+        assertNull("a place without icon leaves no stale icon", awaitLoaded());
+
+        loadIcon(ICON_URL, 0);
+        assertNotNull(awaitLoaded());
+
+        loadIcon("http://example.com/missing.png", 0);
+        assertNull("a failed load leaves no stale icon", awaitLoaded());
+    }
+
+    public void testKeepsPlaceholderOnFailure() throws Exception {
+        loadIcon("http://example.com/missing.png", android.R.drawable.ic_menu_help);
+
+        assertNotNull("the placeholder stays", awaitLoaded());
+    }
+
+    public void testLaterLoadWins() throws Exception {
+        loadIcon("http://example.com/missing.png", 0);
+        loadIcon(ICON_URL, 0);
+
+        assertTrue(awaitLoaded() instanceof BitmapDrawable);
+        Thread.sleep(100);
+        assertTrue("the cancelled load does not clear the view", awaitLoaded() instanceof BitmapDrawable);
+    }
+}
@@ -0,0 +1,155 @@
+package com.github.gfx.googleplaces;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Decodes bitmaps downsampled to a requested size.
+ * <p/>
+ * Decoded bitmaps are immutable unless reuse is enabled with {@link #setReuseBitmaps(boolean)}.
+ * Then they are mutable, and decoding reuses the memory of bitmaps given to {@link #addReusableBitmap(Bitmap)} when possible.
+ */
+public class BitmapDecoder {
+    private static final int MAX_REUSABLE_BITMAPS = 8;
+
+    private final List<Bitmap> reusableBitmaps = new ArrayList<>();
+
+    private volatile boolean reuseBitmaps;
+
+    /**
+     * @param reuseBitmaps true to decode mutable bitmaps which may reuse the memory of released ones.
+     *                     Enable it only if you give bitmaps back with {@link #addReusableBitmap(Bitmap)}.
+     */
+    public BitmapDecoder setReuseBitmaps(boolean reuseBitmaps) {
+        this.reuseBitmaps = reuseBitmaps;
+        return this;
+    }
+
+    public boolean isReusingBitmaps() {
+        return reuseBitmaps;
+    }
+
+    /**
+     * Decodes <code>data</code> in the current thread.
+     *
+     * @param reqWidth  The width of the target view, or 0 to decode at full resolution
+     * @param reqHeight The height of the target view, or 0 to decode at full resolution
+     * @return A bitmap, or null if <code>data</code> is not an image
+     */
+    public Bitmap decode(byte[] data, int reqWidth, int reqHeight) {
+        return decode(data, reqWidth, reqHeight, new CancellableCall());
+    }
+
+    // cancelling the call aborts decoding in progress
+    Bitmap decode(byte[] data, int reqWidth, int reqHeight, CancellableCall call) {
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        call.setAbortAction(new Runnable() {
+            @Override
+            public void run() {
+                options.requestCancelDecode();
+            }
+        });
+        try {
+            return decode(data, reqWidth, reqHeight, options);
+        } finally {
+            call.clearAbortAction();
+        }
+    }
+
+    private Bitmap decode(byte[] data, int reqWidth, int reqHeight, BitmapFactory.Options options) {
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        if (options.mCancel || options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, reqWidth, reqHeight);
+
+        if (reuseBitmaps && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+            options.inMutable = true; // so that it can be reused later
+            options.inBitmap = takeReusableBitmap(options);
+        }
+
+        try {
+            return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        } catch (IllegalArgumentException e) {
+            // the bitmap was not reusable after all
+            options.inBitmap = null;
+            return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        }
+    }
+
+    /**
+     * Offers a bitmap whose memory later decodes may reuse. Immutable bitmaps, i.e. ones decoded without reuse, are ignored.
+     * Call it only when no view shows <code>bitmap</code> and it is no longer in any cache.
+     */
+    public void addReusableBitmap(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB || !bitmap.isMutable() || bitmap.isRecycled()) {
+            return;
+        }
+
+        synchronized (reusableBitmaps) {
+            if (reusableBitmaps.size() >= MAX_REUSABLE_BITMAPS) {
+                reusableBitmaps.remove(0);
+            }
+            reusableBitmaps.add(bitmap);
+        }
+    }
+
+    public int getReusableBitmapCount() {
+        synchronized (reusableBitmaps) {
+            return reusableBitmaps.size();
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
+    private Bitmap takeReusableBitmap(BitmapFactory.Options options) {
+        synchronized (reusableBitmaps) {
+            final Iterator<Bitmap> iterator = reusableBitmaps.iterator();
+            while (iterator.hasNext()) {
+                final Bitmap candidate = iterator.next();
+                if (candidate.isRecycled()) {
+                    iterator.remove();
+                } else if (canReuse(candidate, options)) {
+                    iterator.remove();
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    static boolean canReuse(Bitmap candidate, BitmapFactory.Options options) {
+        final int width = options.outWidth / options.inSampleSize;
+        final int height = options.outHeight / options.inSampleSize;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            // any bitmap large enough, assuming ARGB_8888
+            return (long) width * height * 4 <= candidate.getAllocationByteCount();
+        }
+        // before KitKat, the size must match exactly and no downsampling is allowed
+        return candidate.getWidth() == width && candidate.getHeight() == height && options.inSampleSize == 1;
+    }
+
+    /**
+     * @return The largest power of two which keeps both dimensions at least as large as the requested ones
+     */
+    static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int inSampleSize = 1;
+        if (reqWidth <= 0 || reqHeight <= 0) {
+            return inSampleSize;
+        }
+        while ((width / (inSampleSize * 2)) >= reqWidth && (height / (inSampleSize * 2)) >= reqHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+}
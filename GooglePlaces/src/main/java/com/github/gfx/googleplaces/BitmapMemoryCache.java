@@ -0,0 +1,127 @@
+package com.github.gfx.googleplaces;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A thread-safe LRU cache of bitmaps bounded by their size in bytes.
+ * <p/>
+ * Cached bitmaps are shared with callers as they are, so callers must not modify or recycle them.
+ * Call {@link #trimMemory(int)} from <code>onTrimMemory()</code> of your Application or Activity to release memory.
+ */
+public class BitmapMemoryCache {
+    private final LinkedHashMap<String, Bitmap> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final long maxBytes;
+    private long size;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public BitmapMemoryCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Creates a cache with 1/32 of the heap available to this process.
+     */
+    public static BitmapMemoryCache createDefault() {
+        return new BitmapMemoryCache(Runtime.getRuntime().maxMemory() / 32);
+    }
+
+    public static long sizeOf(Bitmap bitmap) {
+        return (long) bitmap.getRowBytes() * bitmap.getHeight();
+    }
+
+    public synchronized Bitmap get(String key) {
+        final Bitmap bitmap = entries.get(key);
+        if (bitmap != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return bitmap;
+    }
+
+    public synchronized void put(String key, Bitmap bitmap) {
+        final long bitmapSize = sizeOf(bitmap);
+        if (bitmapSize > maxBytes) {
+            return;
+        }
+
+        final Bitmap previous = entries.put(key, bitmap);
+        if (previous != null) {
+            size -= sizeOf(previous);
+        }
+        size += bitmapSize;
+        trimToSize(maxBytes);
+    }
+
+    public synchronized void remove(String key) {
+        final Bitmap bitmap = entries.remove(key);
+        if (bitmap != null) {
+            size -= sizeOf(bitmap);
+        }
+    }
+
+    public synchronized void evictAll() {
+        trimToSize(0);
+    }
+
+    // evicts the least recently used bitmaps until the cache fits in maxSize
+    public synchronized void trimToSize(long maxSize) {
+        final Iterator<Map.Entry<String, Bitmap>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            size -= sizeOf(iterator.next().getValue());
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * @param level A level given to <code>ComponentCallbacks2#onTrimMemory()</code>
+     */
+    public void trimMemory(int level) {
+        // ComponentCallbacks2 constants are inlined, so this is safe below API level 14
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            trimToSize(getSize() / 2);
+        }
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public long getMaxSize() {
+        return maxBytes;
+    }
+
+    public synchronized int getCount() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("BitmapMemoryCache[size=%d/%d, count=%d, hits=%d, misses=%d, evictions=%d]",
+            size, maxBytes, entries.size(), hitCount, missCount, evictionCount);
+    }
+}
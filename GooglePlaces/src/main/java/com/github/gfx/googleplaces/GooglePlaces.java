@@ -1,317 +1,95 @@
 package com.github.gfx.googleplaces;
 
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.os.AsyncTask;
-import android.text.TextUtils;
 import android.util.Log;
+import android.view.ViewGroup;
+import android.widget.ImageView;
 
 import com.google.api.client.extensions.android.json.AndroidJsonFactory;
-import com.google.api.client.http.GenericUrl;
-import com.google.api.client.http.HttpHeaders;
-import com.google.api.client.http.HttpRequest;
-import com.google.api.client.http.HttpRequestFactory;
-import com.google.api.client.http.HttpRequestInitializer;
-import com.google.api.client.http.HttpResponse;
 import com.google.api.client.http.HttpTransport;
 import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.api.client.json.JsonObjectParser;
+import com.google.api.client.json.JsonFactory;
 
 import java.io.IOException;
-import java.util.Locale;
-import java.util.Map;
 
 /**
- * Google Places API client class
+ * Google Places API client class for Android, which delivers results in the main thread and loads icons into views.
+ * Requests are built, cached and dispatched by {@link GooglePlacesBase} of GooglePlacesCore.
  *
  * @see <a href="https://developers.google.com/places/documentation/search">Google Places API</a>
  */
-@SuppressWarnings({"unchecked", "unused"})
-public class GooglePlaces {
-    // Google Places serach url's
-    // See https://developers.google.com/places/documentation/search for details
-    private static final String API_BASE = "https://maps.googleapis.com/maps/api/place";
-    private static final String NEARBY_SEARCH_PATH = "/nearbysearch/json";
-    private static final String RADAR_SEARCH_PATH = "/radarsearch/json";
-    private static final String TEXT_SEARCH_PATH = "/textsearch/json";
-    private static final String DETAILS_PATH = "/details/json";
+public class GooglePlaces extends GooglePlacesBase<GooglePlaces> {
+    // returned when a result is delivered synchronously, e.g. from the memory cache
+    private static final Call COMPLETED_CALL = new Call() {
+        @Override
+        public void cancel() {
+        }
 
-    private String userAgent = "Android Google Places Client/1.0";
-    private String apiBase = API_BASE;
-    private String language = Locale.getDefault().getLanguage();
+        @Override
+        public boolean isCanceled() {
+            return false;
+        }
+    };
 
-    private final String apiKey;
-    private final HttpRequestFactory requestFactory;
+    private BitmapMemoryCache iconCache = BitmapMemoryCache.createDefault();
+    private volatile ResourceLoader iconLoader;
+    private final BitmapDecoder bitmapDecoder = new BitmapDecoder();
 
-    private Map<String, Bitmap> cache = new LruMap<>(8);
+    private final SingleFlight<String, Bitmap> iconFlights = new SingleFlight<>();
 
     public GooglePlaces(String googleApiKey) {
         this(googleApiKey, new NetHttpTransport());
     }
 
     public GooglePlaces(String googleApiKey, HttpTransport transport) {
-        apiKey = googleApiKey;
-        requestFactory = transport.createRequestFactory(new HttpRequestInitializer() {
-            @Override
-            public void initialize(HttpRequest request) throws IOException {
-                final HttpHeaders headers = new HttpHeaders();
-                headers.setUserAgent(userAgent);
-                request.setHeaders(headers);
-                final JsonObjectParser parser = new JsonObjectParser.Builder(new AndroidJsonFactory()).build();
-                request.setParser(parser);
-
-            }
-        });
+        this(googleApiKey, transport, AndroidJsonFactory.getDefaultInstance());
     }
 
     /**
-     * @param language A language code listed in https://spreadsheets.google.com/pub?key=p9pdwsai2hDMsLkXsoM05KQ&gid=1
+     * @param jsonFactory A JSON factory shared by all the requests, e.g. JacksonFactory or GsonFactory
      */
-    public GooglePlaces setLanguage(String language) {
-        this.language = language;
-        return this;
+    public GooglePlaces(String googleApiKey, HttpTransport transport, JsonFactory jsonFactory) {
+        super(googleApiKey, transport, jsonFactory);
+        setUserAgent("Android Google Places Client/1.0");
+        iconLoader = new ResourceLoader(getRequestFactory(), null);
     }
 
-    public String getLanguage() {
-        return language;
-    }
-
-    private abstract class RequestBuilderBase<Derived extends RequestBuilderBase, ResultType extends ResultBase> {
-        protected final GenericUrl url;
-
-        protected ErrorListener errorListener = DefaultErrorListener.getInstance();
-
-        public RequestBuilderBase(GenericUrl url) {
-            this.url = url;
-        }
-
-        public Derived setLanguage(String language) {
-            url.put("language", language);
-            return (Derived) this;
-        }
-
-        public Derived setErrorListener(final ErrorListener listener) {
-            errorListener = listener;
-            return (Derived) this;
-        }
-
-        public Derived get(final ResultListener<ResultType> listener) {
-            new AsyncTask<Void, Void, ResultType>() {
-                @Override
-                protected ResultType doInBackground(Void... params) {
-                    HttpRequest request = null;
-                    try {
-                        request = GooglePlaces.this.buildGetRequest(url);
-                        final ResultType result = (ResultType) request.execute().parseAs(getResultTypeClass());
-                        if (!result.isSuccess()) {
-                            result.setError(new RequestError("Request failure", null, request));
-                        }
-                        return result;
-                    } catch (Exception e) {
-                        return createErrorResult(new RequestError("Failed to request " + url.getRawPath(), e, request));
-                    }
-                }
-
-                @Override
-                protected void onPostExecute(ResultType searchResult) {
-                    if (searchResult.isSuccess()) {
-                        listener.onComplete(searchResult);
-                    } else {
-                        errorListener.onError(searchResult.getError());
-                    }
-                }
-            }.execute((Void) null);
-            return (Derived) this;
-        }
-
-        abstract protected Class<?> getResultTypeClass();
-
-        abstract protected ResultType createErrorResult(RequestError error);
+    @Override
+    protected Dispatcher createDefaultDispatcher() {
+        return Dispatcher.create(new MainThreadExecutor());
     }
 
-    private abstract class SearchBuilderBase<Derived extends SearchBuilderBase> extends RequestBuilderBase<Derived, SearchResult> {
-
-        SearchBuilderBase(GenericUrl url) {
-            super(url);
-        }
-
-        public Derived setMinPrice(int minPrice) {
-            assert 0 <= minPrice && minPrice <= 4;
-            url.put("mminprice", minPrice);
-            return (Derived) this;
-        }
-
-        public Derived setMaxPrice(int maxPrice) {
-            assert 0 <= maxPrice && maxPrice <= 4;
-            url.put("maxprice", maxPrice);
-            return (Derived) this;
-        }
-
-        /**
-         * One or more terms to be matched against the names of Places, separated with a space character. Results will be restricted to those containing the passed name values. Note that a Place may have additional names associated with it, beyond its listed name. The API will try to match the passed name value against all of these names; as a result, Places may be returned in the results whose listed names do not match the search term, but whose associated names do.
-         */
-        public Derived setName(String name) {
-            url.put("name", name);
-            return (Derived) this;
-        }
-
-        public Derived setRankBy(PlaceListOrder rankBy) {
-            url.put("rankby", rankBy.name());
-            return (Derived) this;
-        }
-
-        public Derived setOpenNow(boolean openNow) {
-            url.put("opennow", openNow);
-            return (Derived) this;
-        }
-
-        public Derived setPageToken(String pageToken) {
-            url.put("pagetoken", pageToken);
-            return (Derived) this;
-        }
-
-        /**
-         * This is experimental and is only available to Places API enterprise customers.
-         */
-        public Derived setZagatSelected(boolean zagatSelected) {
-            url.put("zagatselected", zagatSelected);
-            return (Derived) this;
-        }
-
-        /**
-         * @param types List of types listed in https://developers.google.com/places/documentation/supported_types
-         */
-        public Derived setTypes(String... types) {
-            url.put("types", TextUtils.join("|", types));
-            return (Derived) this;
-        }
-
-        @Override
-        protected Class<?> getResultTypeClass() {
-            return SearchResult.class;
-        }
-
-        @Override
-        protected SearchResult createErrorResult(RequestError error) {
-            SearchResult errorResult = new SearchResult();
-            errorResult.setError(error);
-            return errorResult;
-        }
-    }
-
-
-    public class NearbySearchBuilder extends SearchBuilderBase<NearbySearchBuilder> {
-        /**
-         * Creates a request builder for "nearby search". Its parameters are mandatory.
-         */
-        public NearbySearchBuilder(double latitude, double longitude, double radiusInMeter, boolean sensor) {
-            super(new GenericUrl(apiBase + NEARBY_SEARCH_PATH));
-
-            url.put("location", latitude + "," + longitude);
-            url.put("radius", radiusInMeter);
-            url.put("sensor", sensor);
-        }
-
-        public NearbySearchBuilder setKeyword(String keyword) {
-            url.put("keyword", keyword);
-            return this;
-        }
-
-        @Override
-        protected Class<?> getResultTypeClass() {
-            return SearchResult.class;
-        }
-
-        @Override
-        protected SearchResult createErrorResult(RequestError error) {
-            SearchResult errorResult = new SearchResult();
-            errorResult.setError(error);
-            return errorResult;
-        }
-    }
-
-    public class TextSearchBuilder extends SearchBuilderBase<TextSearchBuilder> {
-        /**
-         * Creates a request builder for "text search". Its parameters are mandatory.
-         */
-        public TextSearchBuilder(String query, boolean sensor) {
-            super(new GenericUrl(apiBase + TEXT_SEARCH_PATH));
-            url.put("query", query);
-            url.put("sensor", sensor);
-        }
-
-        public TextSearchBuilder setLocation(double latitude, double longitude) {
-            url.put("location", latitude + "," + longitude);
-            return this;
-        }
-
-        public TextSearchBuilder setRadius(double radiusInMeter) {
-            url.put("radius", radiusInMeter);
-            return this;
-        }
-    }
-
-
-    public class RadarSearchBuilder extends SearchBuilderBase<RadarSearchBuilder> {
-        /**
-         * Creates a request builder for "radar search". Its parameters are mandatory.
-         */
-        public RadarSearchBuilder(double latitude, double longitude, double radiusInMeter, boolean sensor) {
-            super(new GenericUrl(apiBase + RADAR_SEARCH_PATH));
-
-            url.put("location", latitude + "," + longitude);
-            url.put("radius", radiusInMeter);
-            url.put("sensor", sensor);
-        }
-
-        public RadarSearchBuilder setKeyword(String keyword) {
-            url.put("keyword", keyword);
-            return this;
-        }
-    }
-
-    public class DetailBuilder extends RequestBuilderBase<DetailBuilder, PlaceDetail> {
-        DetailBuilder(String reference, boolean sensor) {
-            super(new GenericUrl(apiBase + DETAILS_PATH));
-
-            url.put("reference", reference);
-            url.put("sensor", sensor);
-        }
-
-        @Override
-        protected Class<?> getResultTypeClass() {
-            return SearchResult.class;
-        }
-
-        @Override
-        protected PlaceDetail createErrorResult(RequestError error) {
-            PlaceDetail errorResult = new PlaceDetail();
-            errorResult.setError(error);
-            return errorResult;
-        }
-    }
-
-    public NearbySearchBuilder nearBySearch(double latitude, double longitude, double radiusInMeter, boolean sensor) {
-        return new NearbySearchBuilder(latitude, longitude, radiusInMeter, sensor);
+    /**
+     * @param iconCache A memory cache for icons. Call its <code>trimMemory()</code> on trim-memory signals.
+     */
+    public GooglePlaces setIconCache(BitmapMemoryCache iconCache) {
+        this.iconCache = iconCache;
+        return this;
     }
 
-    public TextSearchBuilder textSearch(String query, boolean sensor) {
-        return new TextSearchBuilder(query, sensor);
+    public BitmapMemoryCache getIconCache() {
+        return iconCache;
     }
 
-    public RadarSearchBuilder radarSearch(double latitude, double longitude, double radiusInMeter, boolean sensor) {
-        return new RadarSearchBuilder(latitude, longitude, radiusInMeter, sensor);
+    /**
+     * @param diskCache A disk cache for icons between the memory cache and the network,
+     *                  e.g. <code>new DiskCache(new File(context.getCacheDir(), "icons"), 1024 * 1024)</code>
+     */
+    public GooglePlaces setIconDiskCache(DiskCache diskCache) {
+        iconLoader = new ResourceLoader(getRequestFactory(), diskCache);
+        return this;
     }
 
-    public DetailBuilder detail(String reference, boolean sensor) {
-        return new DetailBuilder(reference, sensor);
+    public DiskCache getIconDiskCache() {
+        return iconLoader.getDiskCache();
     }
 
-    private HttpRequest buildGetRequest(GenericUrl url) throws IOException {
-        final HttpRequest request = requestFactory.buildGetRequest(url);
-        request.getUrl().put("key", apiKey);
-        request.getUrl().put("language", language); // it can be overridden
-        return request;
+    /**
+     * @return The decoder of icons. To reuse the memory of icons which are no longer displayed,
+     * enable {@link BitmapDecoder#setReuseBitmaps(boolean)} and give them back to it.
+     */
+    public BitmapDecoder getBitmapDecoder() {
+        return bitmapDecoder;
     }
 
     public interface OnGetIconListener {
@@ -325,10 +103,9 @@ public class GooglePlaces {
         assert place != null;
 
         if (place.icon != null) {
-            final HttpRequest request = requestFactory.buildGetRequest(new GenericUrl(place.icon));
-            final HttpResponse response = request.execute();
-            if (response.isSuccessStatusCode()) {
-                return BitmapFactory.decodeStream(response.getContent());
+            final byte[] data = iconLoader.load(place.icon, new CancellableCall());
+            if (data != null) {
+                return bitmapDecoder.decode(data, 0, 0);
             }
         }
         return null;
@@ -337,55 +114,169 @@ public class GooglePlaces {
     /**
      * Get icon bitomap from <code>place.icon</code> in background.
      */
-    public void getIconBitmap(final Place place, final OnGetIconListener listener) {
-        if (place.icon != null) {
-            final Bitmap cached = cache.get(place.icon);
-            if (cached != null) {
-                listener.onGetIcon(Bitmap.createBitmap(cached));
-                return;
+    public Call getIconBitmap(final Place place, final OnGetIconListener listener) {
+        return getIconBitmap(place, 0, 0, listener);
+    }
+
+    /**
+     * Get icon bitmap from <code>place.icon</code> in background, downsampled to fit the given size.
+     * Downloading and decoding run in separate executors of the dispatcher.
+     *
+     * @param width  The width of the target view, or 0 for the full resolution
+     * @param height The height of the target view, or 0 for the full resolution
+     * @return A handle to cancel loading
+     */
+    public Call getIconBitmap(Place place, int width, int height, OnGetIconListener listener) {
+        return getIconBitmap(place, width, height, listener, false);
+    }
+
+    // gives null to the listener on failure if notifyFailure is true
+    private Call getIconBitmap(final Place place, final int width, final int height, final OnGetIconListener listener,
+                               final boolean notifyFailure) {
+        if (place.icon == null) {
+            return COMPLETED_CALL;
+        }
+
+        final String key = (width > 0 && height > 0) ? place.icon + "@" + width + "x" + height : place.icon;
+        final Bitmap cached = iconCache.get(key);
+        if (cached != null) {
+            listener.onGetIcon(cached);
+            return COMPLETED_CALL;
+        }
+
+        final Dispatcher dispatcher = getDispatcher();
+        final Call[] handle = new Call[1];
+        final SingleFlight<String, Bitmap>.Ticket ticket = iconFlights.join(key, new SingleFlight.Listener<Bitmap>() {
+            @Override
+            public void onComplete(final Bitmap bitmap) {
+                if (bitmap == null && !notifyFailure) {
+                    return;
+                }
+                dispatcher.deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!handle[0].isCanceled()) {
+                            listener.onGetIcon(bitmap);
+                        }
+                    }
+                });
             }
+        });
+        handle[0] = ticket;
+        if (!ticket.isLeader()) {
+            return ticket; // the same icon is being downloaded
+        }
+
+        final CancellableCall call = ticket.getSharedCall();
+        dispatcher.execute(RequestPriority.LOW, new Runnable() {
+            private int attempt;
 
-            new AsyncTask<Void, Void, Bitmap>() {
-                @Override
-                protected Bitmap doInBackground(Void... params) {
-                    try {
-                        return getIconBitmap(place);
-                    } catch (IOException e) {
+            @Override
+            public void run() {
+                final byte[] data;
+                try {
+                    call.throwIfCanceled();
+                    attempt++;
+                    data = iconLoader.load(place.icon, call);
+                } catch (IOException e) {
+                    final RetryPolicy policy = getRetryPolicy();
+                    if (policy != null && attempt < policy.getMaxAttempts() && !call.isCanceled() && policy.isRetryable(e)) {
+                        dispatcher.schedule(RequestPriority.LOW, this, policy.getBackoff(attempt)); // not to hold a network thread
+                        return;
+                    }
+                    if (!call.isCanceled()) {
                         Log.w("GooglePlaces", e);
                     }
-                    return null;
+                    iconFlights.complete(ticket, null);
+                    return;
                 }
-
-                @Override
-                protected void onPostExecute(Bitmap bitmap) {
-                    if (bitmap != null) {
-                        cache.put(place.icon, Bitmap.createBitmap(bitmap));
-                        listener.onGetIcon(bitmap);
-                    }
+                if (data == null) {
+                    iconFlights.complete(ticket, null);
+                    return;
                 }
-            }.execute((Void) null);
-        }
+                dispatcher.decode(new Runnable() {
+                    @Override
+                    public void run() {
+                        final Bitmap bitmap = call.isCanceled() ? null : bitmapDecoder.decode(data, width, height, call);
+                        if (bitmap != null) {
+                            iconCache.put(key, bitmap);
+                        }
+                        iconFlights.complete(ticket, bitmap);
+                    }
+                });
+            }
+        });
+        return ticket;
     }
 
-    public interface ResultListener<T> {
-        void onComplete(T result);
+    /**
+     * Loads the icon of <code>place</code> into <code>imageView</code> in background, downsampled to the view size.
+     * Before the view is laid out, the size comes from its layout params; if it is not fixed there either,
+     * the icon is loaded at the full resolution, so prefer {@link #loadIcon(Place, ImageView, int, int)} in adapters.
+     * It must be called in the main thread.
+     */
+    public Call loadIcon(Place place, ImageView imageView) {
+        int width = imageView.getWidth();
+        int height = imageView.getHeight();
+        final ViewGroup.LayoutParams params = imageView.getLayoutParams();
+        if ((width <= 0 || height <= 0) && params != null) {
+            width = params.width; // MATCH_PARENT and WRAP_CONTENT are negative, which means the full resolution
+            height = params.height;
+        }
+        return loadIcon(place, imageView, width, height);
     }
 
-    public interface ErrorListener {
-        void onError(RequestError error);
+    /**
+     * Loads the icon of <code>place</code> into <code>imageView</code> in background, downsampled to fit the given size.
+     * The view is cleared until the icon is loaded, and stays cleared if the place has no icon or loading fails.
+     *
+     * @see #loadIcon(Place, ImageView, int, int, int)
+     */
+    public Call loadIcon(Place place, ImageView imageView, int width, int height) {
+        return loadIcon(place, imageView, width, height, 0);
     }
 
-    // default ErrorListener which throws RuntimeException on errors
-    private static class DefaultErrorListener implements ErrorListener {
-        private static DefaultErrorListener instance = new DefaultErrorListener();
-
-        public static DefaultErrorListener getInstance() {
-            return instance;
+    /**
+     * Loads the icon of <code>place</code> into <code>imageView</code> in background, downsampled to fit the given size.
+     * A previous load into the same view is cancelled, and the placeholder is shown until the icon is loaded,
+     * so recycled views never show a stale icon. The placeholder stays if the place has no icon or loading fails.
+     * The view refers to the load only while it is in progress. It must be called in the main thread.
+     *
+     * @param width         The width of the icon in pixels, e.g. of a dimension resource, or 0 for the full resolution
+     * @param height        The height of the icon in pixels, or 0 for the full resolution
+     * @param placeholderId A drawable resource shown instead of the icon, or 0 to clear the view
+     */
+    public Call loadIcon(Place place, final ImageView imageView, int width, int height, int placeholderId) {
+        final Call previous = (Call) imageView.getTag(R.id.googleplaces_icon_call);
+        if (previous != null) {
+            previous.cancel();
+            imageView.setTag(R.id.googleplaces_icon_call, null);
+        }
+        if (placeholderId != 0) {
+            imageView.setImageResource(placeholderId);
+        } else {
+            imageView.setImageDrawable(null);
         }
 
-        @Override
-        public void onError(RequestError error) {
-            throw new RuntimeException("Uncaught RequestError", error);
+        final Call[] handle = new Call[1];
+        final Call call = getIconBitmap(place, Math.max(width, 0), Math.max(height, 0), new OnGetIconListener() {
+            @Override
+            public void onGetIcon(Bitmap bitmap) {
+                if (handle[0] != null) {
+                    if (imageView.getTag(R.id.googleplaces_icon_call) != handle[0]) {
+                        return; // another load has taken over the view
+                    }
+                    imageView.setTag(R.id.googleplaces_icon_call, null);
+                }
+                if (bitmap != null) {
+                    imageView.setImageBitmap(bitmap);
+                }
+            }
+        }, true);
+        if (call != COMPLETED_CALL) {
+            handle[0] = call;
+            imageView.setTag(R.id.googleplaces_icon_call, call);
         }
+        return call;
     }
 }
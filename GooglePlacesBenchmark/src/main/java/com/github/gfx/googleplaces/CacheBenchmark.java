@@ -0,0 +1,95 @@
+package com.github.gfx.googleplaces;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up and stores entries in the LRU memory tier of ResponseCache, and in the DiskCache used for icons.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class CacheBenchmark {
+    private static final int KEY_COUNT = 1000;
+    private static final int ICON_SIZE = 2 * 1024;
+
+    private final String[] keys = new String[KEY_COUNT];
+    private int nextKey;
+
+    private byte[] body;
+    private ResponseCache responseCache;
+
+    private File directory;
+    private DiskCache diskCache;
+
+    @Setup
+    public void setUp() throws IOException {
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "https://maps.googleapis.com/maps/api/place/nearbysearch/json?location=35.68," + (139 + i * 0.001) + "&radius=500";
+        }
+
+        body = Fixtures.load("nearbysearch");
+        responseCache = new ResponseCache(KEY_COUNT * (long) body.length);
+        for (String key : keys) {
+            responseCache.put(key, Endpoint.NEARBY_SEARCH, body);
+        }
+
+        directory = File.createTempFile("CacheBenchmark", "");
+        if (!directory.delete() || !directory.mkdir()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        diskCache = new DiskCache(directory, KEY_COUNT * (long) ICON_SIZE * 2);
+        final DiskCache.Entry icon = new DiskCache.Entry(new byte[ICON_SIZE], Long.MAX_VALUE);
+        for (String key : keys) {
+            diskCache.put(key, icon);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        diskCache.evictAll();
+        diskCache.close();
+        directory.delete();
+    }
+
+    private String nextKey() {
+        nextKey = (nextKey + 1) % KEY_COUNT;
+        return keys[nextKey];
+    }
+
+    @Benchmark
+    public byte[] responseCacheHit() {
+        return responseCache.get(nextKey());
+    }
+
+    @Benchmark
+    public byte[] responseCacheMiss() {
+        return responseCache.get("https://maps.googleapis.com/maps/api/place/nearbysearch/json?location=0,0");
+    }
+
+    @Benchmark
+    public void responseCachePut() {
+        responseCache.put(nextKey(), Endpoint.NEARBY_SEARCH, body);
+    }
+
+    @Benchmark
+    public DiskCache.Entry diskCacheHit() {
+        return diskCache.get(nextKey());
+    }
+}
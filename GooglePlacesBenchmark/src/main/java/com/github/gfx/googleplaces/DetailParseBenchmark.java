@@ -0,0 +1,57 @@
+package com.github.gfx.googleplaces;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonObjectParser;
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.gson.GsonFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes a place detail response by reflection and by the hand-written reader.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class DetailParseBenchmark {
+    private final JsonFactory jsonFactory = new GsonFactory();
+    private final JsonObjectParser objectParser = new JsonObjectParser(jsonFactory);
+
+    private byte[] content;
+
+    @Setup
+    public void setUp() throws IOException {
+        content = Fixtures.load("details");
+    }
+
+    @Benchmark
+    public PlaceDetail jsonObjectParser() throws IOException {
+        return objectParser.parseAndClose(new ByteArrayInputStream(content), Fixtures.UTF_8, PlaceDetail.class);
+    }
+
+    @Benchmark
+    public PlaceDetail placeDetailReader() throws IOException {
+        final JsonParser parser = jsonFactory.createJsonParser(new ByteArrayInputStream(content), Fixtures.UTF_8);
+        try {
+            return new PlaceDetailReader(parser).read();
+        } finally {
+            parser.close();
+        }
+    }
+}
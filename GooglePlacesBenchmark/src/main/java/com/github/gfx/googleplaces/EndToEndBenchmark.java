@@ -0,0 +1,184 @@
+package com.github.gfx.googleplaces;
+
+import com.github.gfx.googleplaces.okhttp.OkHttpTransport;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.Json;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends nearby searches through GooglePlacesClient, from the builder to the ResultListener:
+ * <ul>
+ * <li>mock: MockHttpTransport, which measures the client alone</li>
+ * <li>net: NetHttpTransport to a local server</li>
+ * <li>okhttp: OkHttpTransport to a local server</li>
+ * </ul>
+ * {@link #nearBySearch()} sends one search at a time, and {@link #concurrentNearBySearch()} measures the throughput
+ * of {@value #CONCURRENT_SEARCHES} searches in flight, where connection pooling of the transports makes a difference.
+ * <p/>
+ * The local server speaks HTTP/1.1 without TLS, so OkHttp cannot negotiate HTTP/2 or SPDY with it,
+ * and the gain of multiplexing is not measured here. <code>LoadTest</code> compares the transports under
+ * hundreds of concurrent searches with <code>--transport=net</code> and <code>--transport=okhttp</code>, with the same limitation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class EndToEndBenchmark {
+    static final int CONCURRENT_SEARCHES = 16;
+
+    @Param({"mock", "net", "okhttp"})
+    public String transport;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private byte[] body;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private GooglePlacesClient client;
+
+    @Setup
+    public void setUp() throws IOException {
+        final byte[] content = Fixtures.load("nearbysearch");
+        body = gzip ? Fixtures.gzip(content) : content;
+
+        switch (transport) {
+            case "mock":
+                client = new GooglePlacesClient("XXX", createMockTransport(), new GsonFactory());
+                break;
+            case "net":
+                client = new GooglePlacesClient("XXX", new NetHttpTransport(), new GsonFactory());
+                client.setApiBase(startServer());
+                break;
+            case "okhttp":
+                client = new GooglePlacesClient("XXX", new OkHttpTransport(), new GsonFactory());
+                client.setApiBase(startServer());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown transport: " + transport);
+        }
+        client.setDispatcher(Dispatcher.create(CONCURRENT_SEARCHES, Dispatcher.DEFAULT_DECODE_THREADS, Dispatcher.DIRECT_EXECUTOR));
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (server != null) {
+            server.stop(0);
+            serverExecutor.shutdown();
+        }
+    }
+
+    private HttpTransport createMockTransport() {
+        return new MockHttpTransport() {
+            @Override
+            public LowLevelHttpRequest buildRequest(String method, String url) throws IOException {
+                return new MockLowLevelHttpRequest() {
+                    @Override
+                    public LowLevelHttpResponse execute() throws IOException {
+                        final MockLowLevelHttpResponse response = new MockLowLevelHttpResponse();
+                        response.setContentType(Json.MEDIA_TYPE);
+                        response.setContent(new ByteArrayInputStream(body));
+                        response.setContentLength(body.length);
+                        if (gzip) {
+                            response.setContentEncoding("gzip");
+                        }
+                        return response;
+                    }
+                };
+            }
+        };
+    }
+
+    // returns the API base of the server
+    private String startServer() throws IOException {
+        serverExecutor = Executors.newFixedThreadPool(CONCURRENT_SEARCHES);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().set("Content-Type", Json.MEDIA_TYPE);
+                if (gzip) {
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                }
+                exchange.sendResponseHeaders(200, body.length);
+                final OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.start();
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Benchmark
+    public SearchResult nearBySearch() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final SearchResult[] result = new SearchResult[1];
+        final RequestError[] error = new RequestError[1];
+
+        client.nearBySearch(35.681382, 139.766084, 500, false)
+            .setErrorListener(new GooglePlacesClient.ErrorListener() {
+                @Override
+                public void onError(RequestError e) {
+                    error[0] = e;
+                    latch.countDown();
+                }
+            })
+            .get(new GooglePlacesClient.ResultListener<SearchResult>() {
+                @Override
+                public void onComplete(SearchResult r) {
+                    result[0] = r;
+                    latch.countDown();
+                }
+            });
+
+        latch.await();
+        if (error[0] != null) {
+            throw new IllegalStateException(error[0]);
+        }
+        return result[0];
+    }
+
+    @Benchmark
+    @Threads(CONCURRENT_SEARCHES)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public SearchResult concurrentNearBySearch() throws InterruptedException {
+        return nearBySearch();
+    }
+}
@@ -0,0 +1,235 @@
+package com.github.gfx.googleplaces;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A local HTTP server which imitates the Places API with the fixture responses, for load tests.
+ * <p/>
+ * It serves <code>/nearbysearch/json</code>, <code>/textsearch/json</code>, <code>/radarsearch/json</code>
+ * and <code>/details/json</code> under {@link #getApiBase()}, with configurable latency, server errors,
+ * <code>OVER_QUERY_LIMIT</code> statuses and pages. Like Google, a page token is INVALID_REQUEST until it is activated.
+ */
+public class FakePlacesServer {
+    private static final Pattern ENDPOINT = Pattern.compile("/(nearbysearch|textsearch|radarsearch|details)/json");
+    private static final Pattern NEXT_PAGE_TOKEN = Pattern.compile("\"next_page_token\"\\s*:\\s*\"[^\"]*\"\\s*,?");
+    private static final Pattern PAGE_TOKEN = Pattern.compile("(?:^|&)pagetoken=([^&]+)");
+
+    private static final String OVER_QUERY_LIMIT = "{\"status\":\"OVER_QUERY_LIMIT\",\"results\":[]}";
+    private static final String INVALID_REQUEST = "{\"status\":\"INVALID_REQUEST\",\"results\":[]}";
+
+    private final Map<String, byte[]> fixtures = new ConcurrentHashMap<>();
+    private final Map<String, Long> pageTokens = new ConcurrentHashMap<>(); // token -> activation time
+    private final AtomicLong tokenSequence = new AtomicLong();
+    private final Random random = new Random();
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong overQueryLimitCount = new AtomicLong();
+
+    private volatile long latency;
+    private volatile long latencyJitter;
+    private volatile double errorRate;
+    private volatile double overQueryLimitRate;
+    private volatile int pages = 1;
+    private volatile long pageTokenDelay;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param latency Milliseconds to wait before each response
+     * @param jitter  Milliseconds added to <code>latency</code> at random, up to this value
+     */
+    public FakePlacesServer setLatency(long latency, long jitter) {
+        this.latency = latency;
+        this.latencyJitter = jitter;
+        return this;
+    }
+
+    /**
+     * @param errorRate The ratio of responses which are <code>500 Internal Server Error</code>, from 0 to 1
+     */
+    public FakePlacesServer setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * @param overQueryLimitRate The ratio of responses whose status is <code>OVER_QUERY_LIMIT</code>, from 0 to 1
+     */
+    public FakePlacesServer setOverQueryLimitRate(double overQueryLimitRate) {
+        this.overQueryLimitRate = overQueryLimitRate;
+        return this;
+    }
+
+    /**
+     * @param pages          The number of pages of each search, linked by <code>next_page_token</code>
+     * @param pageTokenDelay Milliseconds until a page token is activated
+     */
+    public FakePlacesServer setPages(int pages, long pageTokenDelay) {
+        this.pages = pages;
+        this.pageTokenDelay = pageTokenDelay;
+        return this;
+    }
+
+    /**
+     * Starts the server on a free port of the loopback interface.
+     *
+     * @param threads The number of threads to handle requests, which bounds concurrent responses
+     */
+    public synchronized void start(int threads) throws IOException {
+        for (String name : new String[]{"nearbysearch", "textsearch", "radarsearch", "details"}) {
+            fixtures.put(name, Fixtures.load(name));
+        }
+
+        // or the response body waits for the delayed ACK of the headers, adding 40ms to every response
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        executor = Executors.newFixedThreadPool(threads);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), threads);
+        server.setExecutor(executor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    respond(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    /**
+     * @return The base URL to give {@link GooglePlacesClient#setApiBase(String)}
+     */
+    public String getApiBase() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    public long getOverQueryLimitCount() {
+        return overQueryLimitCount.get();
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        sleep();
+
+        final URI uri = exchange.getRequestURI();
+        final Matcher endpoint = ENDPOINT.matcher(uri.getPath());
+        if (!endpoint.find()) {
+            send(exchange, 404, "Not Found");
+            return;
+        }
+
+        final double dice;
+        synchronized (random) {
+            dice = random.nextDouble();
+        }
+        if (dice < errorRate) {
+            errorCount.incrementAndGet();
+            send(exchange, 500, "Internal Server Error");
+            return;
+        }
+        if (dice < errorRate + overQueryLimitRate) {
+            overQueryLimitCount.incrementAndGet();
+            send(exchange, 200, OVER_QUERY_LIMIT);
+            return;
+        }
+
+        final String name = endpoint.group(1);
+        String content = new String(fixtures.get(name), Fixtures.UTF_8);
+        if (!name.equals("details")) {
+            content = paginate(content, uri.getRawQuery());
+            if (content == null) {
+                send(exchange, 200, INVALID_REQUEST);
+                return;
+            }
+        }
+        send(exchange, 200, content);
+    }
+
+    // returns the page with a next_page_token if it is not the last one, or null if the page token is not valid yet
+    private String paginate(String content, String query) {
+        int page = 1;
+        final Matcher pageToken = PAGE_TOKEN.matcher(query != null ? query : "");
+        if (pageToken.find()) {
+            final String token = pageToken.group(1);
+            final Long activatedAt = pageTokens.get(token);
+            if (activatedAt == null || activatedAt > System.currentTimeMillis()) {
+                return null;
+            }
+            page = Integer.parseInt(token.substring(0, token.indexOf('-'))); // "<page>-<sequence>"
+        }
+
+        content = NEXT_PAGE_TOKEN.matcher(content).replaceFirst("");
+        if (page < pages) {
+            final String token = (page + 1) + "-" + tokenSequence.incrementAndGet();
+            pageTokens.put(token, System.currentTimeMillis() + pageTokenDelay);
+            content = content.replaceFirst("\\{", "{\"next_page_token\":\"" + token + "\",");
+        }
+        return content;
+    }
+
+    private void sleep() {
+        long millis = latency;
+        if (latencyJitter > 0) {
+            synchronized (random) {
+                millis += (long) (random.nextDouble() * latencyJitter);
+            }
+        }
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void send(HttpExchange exchange, int statusCode, String content) throws IOException {
+        byte[] body = content.getBytes(Fixtures.UTF_8);
+        final String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            body = Fixtures.gzip(body);
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", statusCode == 200 ? "application/json; charset=UTF-8" : "text/plain");
+        exchange.sendResponseHeaders(statusCode, body.length);
+        final OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+}
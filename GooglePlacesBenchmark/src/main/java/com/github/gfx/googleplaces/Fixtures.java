@@ -0,0 +1,44 @@
+package com.github.gfx.googleplaces;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPOutputStream;
+
+// JSON responses shared with the tests of GooglePlacesCore
+final class Fixtures {
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private Fixtures() {
+    }
+
+    /**
+     * @param name A file name in <code>GooglePlacesCore/src/test/resources</code> without <code>.json</code>, e.g. "nearbysearch"
+     */
+    static byte[] load(String name) throws IOException {
+        final InputStream in = Fixtures.class.getResourceAsStream("/" + name + ".json");
+        if (in == null) {
+            throw new IOException("No such fixture: " + name);
+        }
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    static byte[] gzip(byte[] data) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final GZIPOutputStream gzip = new GZIPOutputStream(out);
+        gzip.write(data);
+        gzip.close();
+        return out.toByteArray();
+    }
+}
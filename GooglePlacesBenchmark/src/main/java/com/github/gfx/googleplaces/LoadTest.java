@@ -0,0 +1,291 @@
+package com.github.gfx.googleplaces;
+
+import com.github.gfx.googleplaces.okhttp.OkHttpTransport;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives hundreds of concurrent searches through GooglePlacesClient against a {@link FakePlacesServer},
+ * and reports throughput, latency percentiles, request metrics and heap/GC stats.
+ * <p/>
+ * The fake server runs in the same JVM, and it decodes and rewrites a fixture with regular expressions for every response,
+ * so heap, GC and thread numbers are of the whole process, not of the client alone.
+ * Compare them between runs of the same options rather than reading them as the footprint of the client.
+ * <p/>
+ * Run it with <code>./gradlew :GooglePlacesBenchmark:loadTest -PloadTest="--concurrency=200 --error-rate=0.05"</code>.
+ * See {@link #DEFAULT_OPTIONS} for the options.
+ */
+public class LoadTest {
+    private static final Map<String, String> DEFAULT_OPTIONS = new LinkedHashMap<>();
+
+    static {
+        DEFAULT_OPTIONS.put("requests", "10000"); // searches to measure
+        DEFAULT_OPTIONS.put("warmup", "1000"); // searches before measuring
+        DEFAULT_OPTIONS.put("concurrency", "200"); // searches in flight
+        DEFAULT_OPTIONS.put("endpoint", "nearby"); // nearby, text or radar
+        DEFAULT_OPTIONS.put("distinct-queries", "1000"); // distinct requests, which the cache can serve
+        DEFAULT_OPTIONS.put("transport", "net"); // net or okhttp
+        DEFAULT_OPTIONS.put("network-threads", String.valueOf(Dispatcher.DEFAULT_NETWORK_THREADS));
+        DEFAULT_OPTIONS.put("cache-bytes", "0"); // the size of ResponseCache, or 0 not to cache
+        DEFAULT_OPTIONS.put("retry", "true");
+        DEFAULT_OPTIONS.put("hedging", "false");
+        DEFAULT_OPTIONS.put("server-threads", "64");
+        DEFAULT_OPTIONS.put("latency", "50"); // milliseconds of the server
+        DEFAULT_OPTIONS.put("latency-jitter", "50");
+        DEFAULT_OPTIONS.put("error-rate", "0");
+        DEFAULT_OPTIONS.put("over-query-limit-rate", "0");
+        DEFAULT_OPTIONS.put("pages", "1"); // pages of each nearby search, fetched with getAll()
+        DEFAULT_OPTIONS.put("page-token-delay", "100"); // milliseconds until a page token is activated
+    }
+
+    private final Map<String, String> options;
+
+    private final GooglePlacesClient client;
+    private final FakePlacesServer server;
+    private final MetricsAggregator metrics = new MetricsAggregator();
+
+    private final LatencyHistogram latencies = new LatencyHistogram(60L * 60 * 1000 * 1000, 3); // microseconds
+    private final AtomicLong successCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = new LinkedHashMap<>(DEFAULT_OPTIONS);
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                exitWithUsage(arg);
+            }
+            final int eq = arg.indexOf('=');
+            final String name = arg.substring(2, eq > 0 ? eq : arg.length());
+            if (!options.containsKey(name)) {
+                exitWithUsage(arg);
+            }
+            options.put(name, eq > 0 ? arg.substring(eq + 1) : "true");
+        }
+
+        final LoadTest loadTest = new LoadTest(options);
+        try {
+            loadTest.run();
+        } finally {
+            loadTest.server.stop();
+        }
+        System.exit(0);
+    }
+
+    private static void exitWithUsage(String arg) {
+        System.err.println("Unknown option: " + arg);
+        System.err.println("Options (--name=value) and defaults: " + DEFAULT_OPTIONS);
+        System.exit(2);
+    }
+
+    LoadTest(Map<String, String> options) throws Exception {
+        this.options = options;
+
+        server = new FakePlacesServer()
+            .setLatency(getLong("latency"), getLong("latency-jitter"))
+            .setErrorRate(getDouble("error-rate"))
+            .setOverQueryLimitRate(getDouble("over-query-limit-rate"))
+            .setPages(getInt("pages"), getLong("page-token-delay"));
+        server.start(getInt("server-threads"));
+
+        final int networkThreads = getInt("network-threads");
+        final HttpTransport transport;
+        switch (options.get("transport")) {
+            case "net":
+                // a process-wide setting of HttpURLConnection, read only once before its first connection
+                System.setProperty("http.maxConnections", String.valueOf(networkThreads));
+                transport = new NetHttpTransport();
+                break;
+            case "okhttp":
+                transport = new OkHttpTransport(networkThreads, OkHttpTransport.DEFAULT_KEEP_ALIVE_DURATION);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown transport: " + options.get("transport"));
+        }
+
+        client = new GooglePlacesClient("XXX", transport, new GsonFactory())
+            .setApiBase(server.getApiBase())
+            .setDispatcher(Dispatcher.create(networkThreads, Dispatcher.DEFAULT_DECODE_THREADS, Dispatcher.DIRECT_EXECUTOR))
+            .setPageTokenDelay(getLong("page-token-delay"))
+            .setMetricsListener(metrics)
+            .setRetryPolicy(getBoolean("retry") ? new RetryPolicy().setHedging(getBoolean("hedging")) : null);
+        if (getLong("cache-bytes") > 0) {
+            client.setResponseCache(new ResponseCache(getLong("cache-bytes")));
+        }
+    }
+
+    void run() throws InterruptedException {
+        System.out.println("Options: " + options);
+
+        search(getInt("warmup"));
+        latencies.reset();
+        metrics.reset();
+        successCount.set(0);
+        errorCount.set(0);
+        final long serverRequestsBefore = server.getRequestCount();
+
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final long gcCountBefore = getGcCount();
+        final long gcTimeBefore = getGcTime();
+        threads.resetPeakThreadCount();
+        final HeapSampler heapSampler = new HeapSampler(memory);
+        heapSampler.start();
+
+        final long startedAt = System.nanoTime();
+        search(getInt("requests"));
+        final long elapsed = System.nanoTime() - startedAt;
+
+        heapSampler.interrupt();
+        heapSampler.join();
+
+        final double seconds = elapsed / 1e9;
+        final long completed = successCount.get() + errorCount.get();
+        System.out.printf("Completed %d searches in %.2fs: %.1f searches/s, %d errors%n",
+            completed, seconds, completed / seconds, errorCount.get());
+        System.out.printf("Latency (ms): p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f mean=%.1f%n",
+            latencies.getValueAtPercentile(50) / 1e3, latencies.getValueAtPercentile(90) / 1e3,
+            latencies.getValueAtPercentile(99) / 1e3, latencies.getValueAtPercentile(99.9) / 1e3,
+            latencies.getMax() / 1e3, latencies.getMean() / 1e3);
+        System.out.printf("Server: %d requests, %d errors, %d OVER_QUERY_LIMIT in total%n",
+            server.getRequestCount() - serverRequestsBefore, server.getErrorCount(), server.getOverQueryLimitCount());
+        System.out.printf("Process heap, client and fake server together: peak %.1fMB, now %.1fMB of %.1fMB; "
+                + "GC: %d collections, %dms; peak threads: %d%n",
+            heapSampler.peak / 1e6, memory.getHeapMemoryUsage().getUsed() / 1e6, memory.getHeapMemoryUsage().getMax() / 1e6,
+            getGcCount() - gcCountBefore, getGcTime() - gcTimeBefore, threads.getPeakThreadCount());
+        System.out.print(metrics);
+    }
+
+    // sends searches with at most "concurrency" in flight, and waits for all of them
+    private void search(int count) throws InterruptedException {
+        final Semaphore inFlight = new Semaphore(getInt("concurrency"));
+        final CountDownLatch done = new CountDownLatch(count);
+        final int distinctQueries = getInt("distinct-queries");
+        final String endpoint = options.get("endpoint");
+        final int pages = getInt("pages");
+
+        for (int i = 0; i < count; i++) {
+            inFlight.acquire();
+            final long startedAt = System.nanoTime();
+            final Runnable onDone = new Runnable() {
+                @Override
+                public void run() {
+                    latencies.recordValue((System.nanoTime() - startedAt) / 1000);
+                    inFlight.release();
+                    done.countDown();
+                }
+            };
+            final GooglePlacesClient.ErrorListener errorListener = new GooglePlacesClient.ErrorListener() {
+                @Override
+                public void onError(RequestError e) {
+                    errorCount.incrementAndGet();
+                    onDone.run();
+                }
+            };
+            final GooglePlacesClient.ResultListener<SearchResult> resultListener = new GooglePlacesClient.ResultListener<SearchResult>() {
+                @Override
+                public void onComplete(SearchResult result) {
+                    successCount.incrementAndGet();
+                    onDone.run();
+                }
+            };
+
+            final int query = i % distinctQueries;
+            final double latitude = 35 + query * 0.001;
+            switch (endpoint) {
+                case "nearby":
+                    final GooglePlacesClient.NearbySearchBuilder nearBySearch = client.nearBySearch(latitude, 139.7, 500, false);
+                    nearBySearch.setErrorListener(errorListener);
+                    if (pages > 1) {
+                        nearBySearch.getAll(pages, new GooglePlacesClient.PageListener() {
+                            @Override
+                            public void onPage(SearchResult page, boolean hasNextPage) {
+                                if (!hasNextPage) {
+                                    resultListener.onComplete(page);
+                                }
+                            }
+                        });
+                    } else {
+                        nearBySearch.get(resultListener);
+                    }
+                    break;
+                case "text":
+                    client.textSearch("query " + query, false).setErrorListener(errorListener).get(resultListener);
+                    break;
+                case "radar":
+                    client.radarSearch(latitude, 139.7, 500, false).setErrorListener(errorListener).get(resultListener);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown endpoint: " + endpoint);
+            }
+        }
+        done.await();
+    }
+
+    private static long getGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(gc.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    private static long getGcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(gc.getCollectionTime(), 0);
+        }
+        return time;
+    }
+
+    private int getInt(String name) {
+        return Integer.parseInt(options.get(name));
+    }
+
+    private long getLong(String name) {
+        return Long.parseLong(options.get(name));
+    }
+
+    private double getDouble(String name) {
+        return Double.parseDouble(options.get(name));
+    }
+
+    private boolean getBoolean(String name) {
+        return Boolean.parseBoolean(options.get(name));
+    }
+
+    // samples the used heap, whose peak between collections tells the live set plus garbage of the client
+    private static class HeapSampler extends Thread {
+        private final MemoryMXBean memory;
+        volatile long peak;
+
+        HeapSampler(MemoryMXBean memory) {
+            super("LoadTest-heap-sampler");
+            this.memory = memory;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted()) {
+                peak = Math.max(peak, memory.getHeapMemoryUsage().getUsed());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.gfx.googleplaces;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonObjectParser;
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.gson.GsonFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes search responses in every way the client does: by reflection, by the hand-written reader,
+ * streaming to a PlaceListener, projected to a few fields, and into a CompactPlaceList.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ParseBenchmark {
+    @Param({"nearbysearch", "textsearch", "radarsearch"})
+    public String fixture;
+
+    private final JsonFactory jsonFactory = new GsonFactory();
+    private final JsonObjectParser objectParser = new JsonObjectParser(jsonFactory);
+    private final Set<PlaceField> projection = EnumSet.of(PlaceField.ID, PlaceField.NAME, PlaceField.GEOMETRY);
+    private final StringPool stringPool = new StringPool();
+
+    private final GooglePlacesClient.PlaceListener placeListener = new GooglePlacesClient.PlaceListener() {
+        @Override
+        public void onPlace(Place place) {
+            lastPlace = place;
+        }
+    };
+    private Place lastPlace;
+
+    private byte[] content;
+
+    @Setup
+    public void setUp() throws IOException {
+        content = Fixtures.load(fixture);
+    }
+
+    private JsonParser createParser() throws IOException {
+        return jsonFactory.createJsonParser(new ByteArrayInputStream(content), Fixtures.UTF_8);
+    }
+
+    @Benchmark
+    public SearchResult jsonObjectParser() throws IOException {
+        return objectParser.parseAndClose(new ByteArrayInputStream(content), Fixtures.UTF_8, SearchResult.class);
+    }
+
+    @Benchmark
+    public SearchResult searchResultReader() throws IOException {
+        final JsonParser parser = createParser();
+        try {
+            return new SearchResultReader(parser).read(null);
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Benchmark
+    public Place streamToPlaceListener() throws IOException {
+        final JsonParser parser = createParser();
+        try {
+            new SearchResultReader(parser).read(placeListener);
+            return lastPlace;
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Benchmark
+    public SearchResult projectedFields() throws IOException {
+        final JsonParser parser = createParser();
+        try {
+            return new SearchResultReader(parser, projection).read(null);
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Benchmark
+    public CompactPlaceList compactPlaceList() throws IOException {
+        final JsonParser parser = createParser();
+        try {
+            return new CompactPlaceListReader(parser, stringPool).read();
+        } finally {
+            parser.close();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.gfx.googleplaces;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts into and queries a PlaceIndex of places spread over a 50km square.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class PlaceIndexBenchmark {
+    private static final double SOUTH = 35.5;
+    private static final double WEST = 139.5;
+    private static final double SPAN = 0.45; // about 50km
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private final Random random = new Random(42);
+    private Place[] places;
+    private PlaceIndex index;
+
+    @Setup
+    public void setUp() {
+        places = new Place[size];
+        for (int i = 0; i < size; i++) {
+            final Place place = new Place();
+            place.id = "place" + i;
+            place.geometry = new Place.Geometry();
+            place.geometry.location = new Place.Location();
+            place.geometry.location.lat = SOUTH + random.nextDouble() * SPAN;
+            place.geometry.location.lng = WEST + random.nextDouble() * SPAN;
+            places[i] = place;
+        }
+        index = new PlaceIndex();
+        index.addAll(Arrays.asList(places));
+    }
+
+    @Benchmark
+    public void add() {
+        index.add(places[random.nextInt(size)]); // replaces itself, so the size stays
+    }
+
+    @Benchmark
+    public List<Place> queryRadius() {
+        return index.queryRadius(SOUTH + random.nextDouble() * SPAN, WEST + random.nextDouble() * SPAN, 500);
+    }
+
+    @Benchmark
+    public List<Place> queryBox() {
+        final double south = SOUTH + random.nextDouble() * SPAN;
+        final double west = WEST + random.nextDouble() * SPAN;
+        return index.queryBox(south, west, south + 0.01, west + 0.01);
+    }
+}
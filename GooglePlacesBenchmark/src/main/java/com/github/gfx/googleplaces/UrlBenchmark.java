@@ -0,0 +1,64 @@
+package com.github.gfx.googleplaces;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds requests: the GenericUrl of each search builder, and the cache key of a request URL.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class UrlBenchmark {
+    private GooglePlacesClient client;
+    private GenericUrl requestUrl;
+
+    @Setup
+    public void setUp() {
+        client = new GooglePlacesClient("XXX", new MockHttpTransport(), new GsonFactory());
+        requestUrl = new GenericUrl("https://maps.googleapis.com/maps/api/place/nearbysearch/json"
+            + "?location=35.681382,139.766084&radius=500.0&sensor=false&language=ja&types=cafe%7Crestaurant&key=XXX");
+    }
+
+    @Benchmark
+    public GooglePlacesClient.NearbySearchBuilder nearBySearch() {
+        return client.nearBySearch(35.681382, 139.766084, 500, false);
+    }
+
+    @Benchmark
+    public GooglePlacesClient.TextSearchBuilder textSearch() {
+        return client.textSearch("ramen near Tokyo Station", false);
+    }
+
+    @Benchmark
+    public GooglePlacesClient.RadarSearchBuilder radarSearch() {
+        return client.radarSearch(35.681382, 139.766084, 500, false);
+    }
+
+    @Benchmark
+    public String buildRequestUrl() {
+        return requestUrl.build();
+    }
+
+    @Benchmark
+    public String canonicalize() {
+        return ResponseCache.canonicalize(requestUrl);
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.gfx.googleplaces;
+
+/**
+ * A handle of a request in flight.
+ */
+public interface Call {
+    /**
+     * Cancels the request. Its listeners are not called once this method returns in the callback thread.
+     * Cancelling stops the HTTP transfer and decoding in progress.
+     */
+    void cancel();
+
+    boolean isCanceled();
+}
@@ -0,0 +1,75 @@
+package com.github.gfx.googleplaces;
+
+import com.google.api.client.http.HttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * A {@link Call} which aborts the operation in progress, e.g. an HTTP transfer, when cancelled.
+ */
+class CancellableCall implements Call {
+    private volatile boolean canceled;
+
+    private Runnable abortAction; // guarded by this
+
+    @Override
+    public void cancel() {
+        final Runnable action;
+        synchronized (this) {
+            if (canceled) {
+                return;
+            }
+            canceled = true;
+            action = abortAction;
+            abortAction = null;
+        }
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    /**
+     * Sets an action to abort the current operation, or runs it at once if already cancelled.
+     */
+    public void setAbortAction(Runnable action) {
+        synchronized (this) {
+            if (!canceled) {
+                abortAction = action;
+                return;
+            }
+        }
+        action.run();
+    }
+
+    public synchronized void clearAbortAction() {
+        abortAction = null;
+    }
+
+    /**
+     * Disconnects <code>response</code> when cancelled, which makes a blocking read of its content fail.
+     */
+    public void attach(final HttpResponse response) {
+        setAbortAction(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    response.disconnect();
+                } catch (IOException e) {
+                    // it is being cancelled
+                }
+            }
+        });
+    }
+
+    public void throwIfCanceled() throws InterruptedIOException {
+        if (canceled) {
+            throw new InterruptedIOException("Canceled");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.gfx.googleplaces;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// copies everything read from the stream, so that a parsed response can be cached as is
+class CapturingInputStream extends FilterInputStream {
+    private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+    CapturingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int b = super.read();
+        if (b != -1) {
+            captured.write(b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        final int n = super.read(buffer, offset, length);
+        if (n > 0) {
+            captured.write(buffer, offset, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        final byte[] buffer = new byte[(int) Math.min(n, 4096)];
+        final int read = read(buffer, 0, buffer.length);
+        return read > 0 ? read : 0;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    public byte[] toByteArray() {
+        return captured.toByteArray();
+    }
+}
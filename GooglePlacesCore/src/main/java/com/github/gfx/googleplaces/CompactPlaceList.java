@@ -0,0 +1,150 @@
+package com.github.gfx.googleplaces;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A search result which keeps only ids, references and locations of places, in parallel arrays.
+ * <p/>
+ * It retains a fraction of the heap of {@link SearchResult}, which holds a Place, a Geometry and a Location per place.
+ * Strings are shared with other results through a pool, so the same place in many cached results costs one copy.
+ * Iterating it creates short-lived Place objects with <code>id</code>, <code>reference</code> and <code>geometry</code>.
+ */
+public class CompactPlaceList implements Serializable, Iterable<Place>, ResultBase {
+    private static final int INITIAL_CAPACITY = 20;
+
+    private RequestError error; // to return an error
+
+    public String status;
+
+    private int size;
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private String[] references = new String[INITIAL_CAPACITY];
+    private double[] latitudes = new double[INITIAL_CAPACITY];
+    private double[] longitudes = new double[INITIAL_CAPACITY];
+
+    void add(String id, String reference, double latitude, double longitude) {
+        if (size == ids.length) {
+            resize(size * 2);
+        }
+        ids[size] = id;
+        references[size] = reference;
+        latitudes[size] = latitude;
+        longitudes[size] = longitude;
+        size++;
+    }
+
+    // releases the unused capacity once all the places are added
+    void trimToSize() {
+        if (size < ids.length) {
+            resize(size);
+        }
+    }
+
+    private void resize(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        references = Arrays.copyOf(references, capacity);
+        latitudes = Arrays.copyOf(latitudes, capacity);
+        longitudes = Arrays.copyOf(longitudes, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getId(int n) {
+        checkIndex(n);
+        return ids[n];
+    }
+
+    public String getReference(int n) {
+        checkIndex(n);
+        return references[n];
+    }
+
+    public double getLatitude(int n) {
+        checkIndex(n);
+        return latitudes[n];
+    }
+
+    public double getLongitude(int n) {
+        checkIndex(n);
+        return longitudes[n];
+    }
+
+    /**
+     * @return A new Place with <code>id</code>, <code>reference</code> and <code>geometry</code>
+     */
+    public Place get(int n) {
+        checkIndex(n);
+        final Place place = new Place();
+        place.id = ids[n];
+        place.reference = references[n];
+        place.geometry = new Place.Geometry();
+        place.geometry.location = new Place.Location();
+        place.geometry.location.lat = latitudes[n];
+        place.geometry.location.lng = longitudes[n];
+        return place;
+    }
+
+    private void checkIndex(int n) {
+        if (n < 0 || n >= size) {
+            throw new IndexOutOfBoundsException("Index: " + n + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public Iterator<Place> iterator() {
+        return new Iterator<Place>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Place next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public String getStatus() {
+        return status;
+    }
+
+    @Override
+    public RequestError getError() {
+        if (error != null) {
+            return error;
+        }
+        else if (! SearchResult.OK.equals(status)) {
+            return new RequestError(status, null, null);
+        }
+        else {
+            return null;
+        }
+    }
+
+    @Override
+    public void setError(RequestError error) {
+        this.error = error;
+    }
+
+    @Override
+    public boolean isSuccess() {
+        return error == null && SearchResult.OK.equals(status);
+    }
+}
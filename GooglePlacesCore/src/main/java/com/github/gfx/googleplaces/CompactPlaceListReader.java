@@ -0,0 +1,112 @@
+package com.github.gfx.googleplaces;
+
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Reads a search response into a {@link CompactPlaceList}, without creating a Place for each place.
+ */
+class CompactPlaceListReader {
+    private final JsonParser parser;
+    private final StringPool stringPool;
+
+    // the location of the place being read
+    private double latitude;
+    private double longitude;
+
+    CompactPlaceListReader(JsonParser parser, StringPool stringPool) {
+        this.parser = parser;
+        this.stringPool = stringPool;
+    }
+
+    public CompactPlaceList read() throws IOException {
+        final CompactPlaceList result = new CompactPlaceList();
+
+        JsonToken token = parser.nextToken();
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("Unexpected token: " + token);
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (name) {
+                case "status":
+                    result.status = parser.getText();
+                    break;
+                case "results":
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readPlace(result);
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        result.trimToSize();
+        return result;
+    }
+
+    private void readPlace(CompactPlaceList result) throws IOException {
+        String id = null;
+        String reference = null;
+        latitude = 0;
+        longitude = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (name) {
+                case "id":
+                    id = stringPool.intern(parser.getText());
+                    break;
+                case "reference":
+                    reference = stringPool.intern(parser.getText());
+                    break;
+                case "geometry":
+                    readGeometry();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        result.add(id, reference, latitude, longitude);
+    }
+
+    private void readGeometry() throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            if (!name.equals("location")) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String member = parser.getCurrentName();
+                parser.nextToken();
+                switch (member) {
+                    case "lat":
+                        latitude = parser.getDoubleValue();
+                        break;
+                    case "lng":
+                        longitude = parser.getDoubleValue();
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.github.gfx.googleplaces;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size-bounded LRU cache of byte arrays in a directory, e.g. a subdirectory of the app cache dir.
+ * <p/>
+ * The LRU order is kept in a journal, which is replayed when the cache is opened.
+ * Entries are written to a temporary file and renamed into place, so readers never see a partial entry
+ * and can read concurrently without holding the lock.
+ */
+public class DiskCache {
+    private static final int MAGIC = 0x47504332; // "GPC2"
+
+    static final String JOURNAL_FILE = "journal";
+    private static final String JOURNAL_TMP_FILE = "journal.tmp";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final String PUT = "PUT";
+    private static final String READ = "READ";
+    private static final String REMOVE = "REMOVE";
+
+    private final File directory;
+    private final long maxBytes;
+
+    // file name to file size, in LRU order
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    private Writer journal;
+    private int journalLines;
+    private long tmpSequence;
+
+    public DiskCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long size() {
+        openIfNeeded();
+        return size;
+    }
+
+    /**
+     * @return An entry including an expired one, or null if not cached
+     */
+    public Entry get(String key) {
+        final String name = hash(key);
+        synchronized (this) {
+            openIfNeeded();
+            if (index.get(name) == null) {
+                return null;
+            }
+            appendJournal(READ, name, 0);
+        }
+
+        final File file = new File(directory, name);
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Broken cache entry: " + file);
+            }
+            final long expiresAt = in.readLong();
+            final String etag = in.readUTF();
+            final byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            return new Entry(data, expiresAt, etag.isEmpty() ? null : etag);
+        } catch (IOException e) {
+            remove(key);
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    public void put(String key, Entry entry) throws IOException {
+        final String name = hash(key);
+        final File tmp;
+        synchronized (this) {
+            openIfNeeded();
+            tmp = new File(directory, name + "." + (tmpSequence++) + TMP_SUFFIX);
+        }
+
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeLong(entry.expiresAt);
+            out.writeUTF(entry.etag != null ? entry.etag : "");
+            out.writeInt(entry.data.length);
+            out.write(entry.data);
+        } catch (IOException e) {
+            out.close();
+            tmp.delete();
+            throw e;
+        }
+        out.close();
+
+        synchronized (this) {
+            final File file = new File(directory, name);
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                throw new IOException("Cannot rename " + tmp + " to " + file);
+            }
+            final Long previous = index.put(name, file.length());
+            if (previous != null) {
+                size -= previous;
+            }
+            size += file.length();
+            appendJournal(PUT, name, file.length());
+            trimToSize();
+        }
+    }
+
+    public synchronized void remove(String key) {
+        openIfNeeded();
+        final String name = hash(key);
+        final Long length = index.remove(name);
+        if (length != null) {
+            size -= length;
+            new File(directory, name).delete();
+            appendJournal(REMOVE, name, 0);
+        }
+    }
+
+    public synchronized void evictAll() {
+        openIfNeeded();
+        for (String name : index.keySet()) {
+            new File(directory, name).delete();
+        }
+        index.clear();
+        size = 0;
+        rebuildJournal();
+    }
+
+    public synchronized void close() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            journal = null;
+        }
+    }
+
+    private void trimToSize() {
+        final Iterator<Map.Entry<String, Long>> iterator = index.entrySet().iterator();
+        while (size > maxBytes && iterator.hasNext()) {
+            final Map.Entry<String, Long> eldest = iterator.next();
+            size -= eldest.getValue();
+            iterator.remove();
+            new File(directory, eldest.getKey()).delete();
+            appendJournal(REMOVE, eldest.getKey(), 0);
+        }
+    }
+
+    private void openIfNeeded() {
+        if (journal != null) {
+            return;
+        }
+
+        directory.mkdirs();
+        readJournal();
+
+        // drop files which the journal doesn't know, e.g. temporary files of a crashed process
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                final String name = file.getName();
+                if (!name.equals(JOURNAL_FILE) && !index.containsKey(name)) {
+                    file.delete();
+                }
+            }
+        }
+        rebuildJournal();
+        trimToSize();
+    }
+
+    private void readJournal() {
+        final File file = new File(directory, JOURNAL_FILE);
+        if (!file.exists()) {
+            return;
+        }
+
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(file));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] fields = line.split(" ");
+                if (fields.length < 2) {
+                    continue; // a torn line at the end
+                }
+                final String name = fields[1];
+                switch (fields[0]) {
+                    case PUT:
+                        if (fields.length == 3 && new File(directory, name).exists()) {
+                            final Long previous = index.put(name, Long.parseLong(fields[2]));
+                            if (previous != null) {
+                                size -= previous;
+                            }
+                            size += Long.parseLong(fields[2]);
+                        }
+                        break;
+                    case READ:
+                        index.get(name);
+                        break;
+                    case REMOVE:
+                        final Long length = index.remove(name);
+                        if (length != null) {
+                            size -= length;
+                        }
+                        break;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // keep what has been read so far
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    // writes a compact journal of the current index, replacing the old one atomically
+    private void rebuildJournal() {
+        close();
+        final File tmp = new File(directory, JOURNAL_TMP_FILE);
+        try {
+            final Writer writer = new FileWriter(tmp);
+            try {
+                for (Map.Entry<String, Long> entry : index.entrySet()) {
+                    writer.write(PUT + " " + entry.getKey() + " " + entry.getValue() + "\n");
+                }
+            } finally {
+                writer.close();
+            }
+            if (!tmp.renameTo(new File(directory, JOURNAL_FILE))) {
+                throw new IOException("Cannot rename " + tmp);
+            }
+            journal = new FileWriter(new File(directory, JOURNAL_FILE), true);
+        } catch (IOException e) {
+            journal = new NullWriter(); // the cache still works, but the LRU order will not survive
+        }
+        journalLines = index.size();
+    }
+
+    private void appendJournal(String operation, String name, long length) {
+        try {
+            journal.write(operation.equals(PUT) ? operation + " " + name + " " + length + "\n" : operation + " " + name + "\n");
+            journal.flush();
+        } catch (IOException e) {
+            // the journal is advisory
+        }
+        if (++journalLines > index.size() * 2 + 1000) {
+            rebuildJournal();
+        }
+    }
+
+    static String hash(String key) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes("UTF-8"));
+            final StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+                hex.append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void closeQuietly(DataInputStream in) {
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    private static class NullWriter extends Writer {
+        @Override
+        public void write(char[] buffer, int offset, int count) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public static class Entry {
+        public final byte[] data;
+        public final long expiresAt;
+        public final String etag;
+
+        public Entry(byte[] data, long expiresAt) {
+            this(data, expiresAt, null);
+        }
+
+        public Entry(byte[] data, long expiresAt, String etag) {
+            this.data = data;
+            this.expiresAt = expiresAt;
+            this.etag = etag;
+        }
+
+        public boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
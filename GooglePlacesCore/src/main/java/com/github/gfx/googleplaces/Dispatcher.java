@@ -0,0 +1,174 @@
+package com.github.gfx.googleplaces;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs network work, decoding and result delivery on separate executors.
+ * <p/>
+ * Network work is ordered by {@link RequestPriority}, so searches and details go ahead of icon downloads.
+ * This class has no Android dependency; pass any {@link Executor} as the callback executor to use it on a plain JVM.
+ */
+public class Dispatcher {
+    public static final int DEFAULT_NETWORK_THREADS = 4;
+    public static final int DEFAULT_DECODE_THREADS = 1;
+
+    /**
+     * Runs callbacks in the thread which completes the work.
+     */
+    public static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final Executor networkExecutor;
+    private final Executor decodeExecutor;
+    private final Executor callbackExecutor;
+
+    private ScheduledExecutorService timer;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    public Dispatcher(Executor networkExecutor, Executor decodeExecutor, Executor callbackExecutor) {
+        this.networkExecutor = networkExecutor;
+        this.decodeExecutor = decodeExecutor;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Creates a dispatcher with bounded thread pools. The network pool takes tasks in priority order.
+     */
+    public static Dispatcher create(int networkThreads, int decodeThreads, Executor callbackExecutor) {
+        return new Dispatcher(
+            newPriorityThreadPool("GooglePlaces-network", networkThreads),
+            newPriorityThreadPool("GooglePlaces-decode", decodeThreads),
+            callbackExecutor);
+    }
+
+    public static Dispatcher create(Executor callbackExecutor) {
+        return create(DEFAULT_NETWORK_THREADS, DEFAULT_DECODE_THREADS, callbackExecutor);
+    }
+
+    /**
+     * Creates a fixed size thread pool which runs {@link PrioritizedTask}s in priority order.
+     * Its threads are daemons and time out when idle.
+     */
+    public static ThreadPoolExecutor newPriorityThreadPool(String name, int threads) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+            new PriorityBlockingQueue<Runnable>(), newDaemonThreadFactory(name));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static ThreadFactory newDaemonThreadFactory(final String name) {
+        return new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    public Executor getNetworkExecutor() {
+        return networkExecutor;
+    }
+
+    public Executor getDecodeExecutor() {
+        return decodeExecutor;
+    }
+
+    public Executor getCallbackExecutor() {
+        return callbackExecutor;
+    }
+
+    public void execute(RequestPriority priority, Runnable task) {
+        networkExecutor.execute(new PrioritizedTask(priority, sequence.getAndIncrement(), task));
+    }
+
+    /**
+     * Runs <code>task</code> in the network executor after <code>delayMillis</code>.
+     * The timer thread only hands tasks over, so it never blocks on the network.
+     */
+    public void schedule(final RequestPriority priority, final Runnable task, long delayMillis) {
+        if (delayMillis <= 0) {
+            execute(priority, task);
+            return;
+        }
+        getTimer().schedule(new Runnable() {
+            @Override
+            public void run() {
+                execute(priority, task);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs <code>task</code> in the callback executor after <code>delayMillis</code>, e.g. a timeout.
+     * Unlike {@link #schedule(RequestPriority, Runnable, long)}, it runs even when all the network threads are busy.
+     */
+    public void deliverLater(final Runnable task, long delayMillis) {
+        getTimer().schedule(new Runnable() {
+            @Override
+            public void run() {
+                deliver(task);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized ScheduledExecutorService getTimer() {
+        if (timer == null) {
+            timer = new ScheduledThreadPoolExecutor(1, newDaemonThreadFactory("GooglePlaces-timer"));
+        }
+        return timer;
+    }
+
+    public void decode(Runnable task) {
+        decodeExecutor.execute(new PrioritizedTask(RequestPriority.NORMAL, sequence.getAndIncrement(), task));
+    }
+
+    public void deliver(Runnable task) {
+        callbackExecutor.execute(task);
+    }
+
+    /**
+     * A task ordered by its priority, and then by its submission order.
+     */
+    public static class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final RequestPriority priority;
+        private final long sequence;
+        private final Runnable task;
+
+        PrioritizedTask(RequestPriority priority, long sequence, Runnable task) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask another) {
+            final int order = priority.compareTo(another.priority);
+            if (order != 0) {
+                return order;
+            }
+            return sequence < another.sequence ? -1 : (sequence == another.sequence ? 0 : 1);
+        }
+    }
+}
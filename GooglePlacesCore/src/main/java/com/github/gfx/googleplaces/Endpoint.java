@@ -0,0 +1,9 @@
+package com.github.gfx.googleplaces;
+
+// Google Places API endpoints, used to configure per-endpoint policies
+public enum Endpoint {
+    NEARBY_SEARCH,
+    TEXT_SEARCH,
+    RADAR_SEARCH,
+    DETAILS,
+}
@@ -0,0 +1,1403 @@
+package com.github.gfx.googleplaces;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonObjectParser;
+import com.google.api.client.json.JsonParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The Google Places API client without Android dependencies: request building, parsing, caching and dispatching.
+ * Use {@link GooglePlacesClient} on the JVM, or <code>GooglePlaces</code> of the Android library on Android.
+ *
+ * @param <Client> The concrete class, returned by the setters for chaining
+ * @see <a href="https://developers.google.com/places/documentation/search">Google Places API</a>
+ */
+public abstract class GooglePlacesBase<Client extends GooglePlacesBase<Client>> {
+    // Google Places serach url's
+    // See https://developers.google.com/places/documentation/search for details
+    private static final String API_BASE = "https://maps.googleapis.com/maps/api/place";
+    private static final String NEARBY_SEARCH_PATH = "/nearbysearch/json";
+    private static final String RADAR_SEARCH_PATH = "/radarsearch/json";
+    private static final String TEXT_SEARCH_PATH = "/textsearch/json";
+    private static final String DETAILS_PATH = "/details/json";
+
+    /**
+     * Google accepts a next_page_token only after a short delay.
+     */
+    public static final long DEFAULT_PAGE_TOKEN_DELAY = 2000;
+
+    // attempts to fetch a page whose token is not yet valid, with the delay doubled each time
+    private static final int MAX_PAGE_TOKEN_ATTEMPTS = 5;
+
+    public static final int DEFAULT_BATCH_PARALLELISM = 4;
+
+    public static final int DEFAULT_CONNECT_TIMEOUT = 20 * 1000;
+    public static final int DEFAULT_READ_TIMEOUT = 20 * 1000;
+
+    // parameters of a nearby search which don't narrow down places
+    private static final Set<String> UNFILTERED_PARAMETERS = new HashSet<>(Arrays.asList("location", "radius", "sensor", "language"));
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private String userAgent = "Google Places Client/1.0";
+    private String apiBase = API_BASE;
+    private String language = Locale.getDefault().getLanguage();
+    private int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private int readTimeout = DEFAULT_READ_TIMEOUT;
+
+    private final String apiKey;
+    private final HttpRequestFactory requestFactory;
+    private final JsonFactory jsonFactory;
+    private final JsonObjectParser parser; // thread-safe, shared by all the requests
+
+    private Dispatcher dispatcher;
+
+    private ResponseCache responseCache;
+
+    private final TransferStats transferStats = new TransferStats();
+
+    private final StringPool stringPool = new StringPool(); // shared by compact results
+
+    private PlaceIndex placeIndex;
+
+    private RateLimiter rateLimiter;
+
+    private RetryPolicy retryPolicy = new RetryPolicy();
+
+    private MetricsListener metricsListener;
+
+    private long pageTokenDelay = DEFAULT_PAGE_TOKEN_DELAY;
+
+    private final SingleFlight<String, ResultBase> requestFlights = new SingleFlight<>();
+
+    /**
+     * @param jsonFactory A JSON factory shared by all the requests, e.g. JacksonFactory or GsonFactory
+     */
+    protected GooglePlacesBase(String googleApiKey, HttpTransport transport, JsonFactory jsonFactory) {
+        apiKey = googleApiKey;
+        this.jsonFactory = jsonFactory;
+        parser = new JsonObjectParser(jsonFactory);
+        requestFactory = transport.createRequestFactory(new HttpRequestInitializer() {
+            @Override
+            public void initialize(HttpRequest request) throws IOException {
+                // HttpRequest already owns its HttpHeaders, and they can't be shared
+                // because HttpRequest#execute() rewrites the user agent in place.
+                request.getHeaders().setUserAgent(userAgent);
+                request.setParser(parser);
+                request.setConnectTimeout(connectTimeout);
+                request.setReadTimeout(readTimeout);
+            }
+        });
+    }
+
+    public JsonFactory getJsonFactory() {
+        return jsonFactory;
+    }
+
+    public Client setUserAgent(String userAgent) {
+        this.userAgent = userAgent;
+        return self();
+    }
+
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    /**
+     * @param apiBase The base URL of the API, e.g. a local server for testing. It defaults to <code>https://maps.googleapis.com/maps/api/place</code>.
+     */
+    public Client setApiBase(String apiBase) {
+        this.apiBase = apiBase;
+        return self();
+    }
+
+    public String getApiBase() {
+        return apiBase;
+    }
+
+    /**
+     * @param language A language code listed in https://spreadsheets.google.com/pub?key=p9pdwsai2hDMsLkXsoM05KQ&gid=1
+     */
+    public Client setLanguage(String language) {
+        this.language = language;
+        return self();
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    /**
+     * @param connectTimeout Timeout in milliseconds to establish a connection, or 0 for an infinite timeout
+     */
+    public Client setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        return self();
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * @param readTimeout Timeout in milliseconds to read data from an established connection, or 0 for an infinite timeout
+     */
+    public Client setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+        return self();
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * @param dispatcher A dispatcher which runs requests and delivers their results
+     */
+    public Client setDispatcher(Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+        return self();
+    }
+
+    /**
+     * @param responseCache A cache which serves repeated searches and details without network, or null to disable it
+     */
+    public Client setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+        return self();
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * @param rateLimiter A rate limiter of API requests, or null to disable it. It doesn't limit cache hits.
+     */
+    public Client setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+        return self();
+    }
+
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * @param retryPolicy A policy to retry transient failures, or null not to retry
+     */
+    public Client setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return self();
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * @param metricsListener A listener which receives the metrics of every request, e.g. {@link MetricsAggregator}, or null
+     */
+    public Client setMetricsListener(MetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+        return self();
+    }
+
+    public MetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * @param placeIndex An index which receives the places of all the searches without fields, or null to disable it
+     */
+    public Client setPlaceIndex(PlaceIndex placeIndex) {
+        this.placeIndex = placeIndex;
+        return self();
+    }
+
+    public PlaceIndex getPlaceIndex() {
+        return placeIndex;
+    }
+
+    /**
+     * @return Bytes of responses per endpoint, compressed and uncompressed
+     */
+    public TransferStats getTransferStats() {
+        return transferStats;
+    }
+
+    /**
+     * @param pageTokenDelay Milliseconds to wait before the first request with a next_page_token
+     */
+    public Client setPageTokenDelay(long pageTokenDelay) {
+        this.pageTokenDelay = pageTokenDelay;
+        return self();
+    }
+
+    public long getPageTokenDelay() {
+        return pageTokenDelay;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Client self() {
+        return (Client) this;
+    }
+
+    public synchronized Dispatcher getDispatcher() {
+        if (dispatcher == null) {
+            dispatcher = createDefaultDispatcher();
+        }
+        return dispatcher;
+    }
+
+    /**
+     * @return A dispatcher which delivers results in the network threads. Platforms override it to use their main thread.
+     */
+    protected Dispatcher createDefaultDispatcher() {
+        return Dispatcher.create(Dispatcher.DIRECT_EXECUTOR);
+    }
+
+    protected HttpRequestFactory getRequestFactory() {
+        return requestFactory;
+    }
+
+    private abstract class RequestBuilderBase<Derived extends RequestBuilderBase, ResultType extends ResultBase>
+        implements AsyncRequest<ResultType> {
+        protected final GenericUrl url;
+
+        protected ErrorListener errorListener = DefaultErrorListener.getInstance();
+
+        protected RequestPriority priority = RequestPriority.NORMAL;
+
+        protected final Endpoint endpoint;
+
+        public RequestBuilderBase(Endpoint endpoint, GenericUrl url) {
+            this.endpoint = endpoint;
+            this.url = url;
+        }
+
+        @SuppressWarnings("unchecked")
+        protected Derived self() {
+            return (Derived) this;
+        }
+
+        public Derived setLanguage(String language) {
+            url.put("language", language);
+            return self();
+        }
+
+        public Derived setErrorListener(final ErrorListener listener) {
+            errorListener = listener;
+            return self();
+        }
+
+        public Derived setPriority(RequestPriority priority) {
+            this.priority = priority;
+            return self();
+        }
+
+        /**
+         * Sends the request in background. The listener is called in the callback executor of the dispatcher.
+         *
+         * @return A handle to cancel the request
+         */
+        public Call get(ResultListener<ResultType> listener) {
+            return send(listener, errorListener);
+        }
+
+        /**
+         * Sends the request in background, and returns its result as a future to be composed with other requests.
+         * The error listener of the builder is not used; errors fail the future instead.
+         */
+        @Override
+        public PlacesFuture<ResultType> getAsync() {
+            final PlacesFuture<ResultType> future = new PlacesFuture<>(getDispatcher());
+            future.setCall(send(new ResultListener<ResultType>() {
+                @Override
+                public void onComplete(ResultType result) {
+                    future.complete(result);
+                }
+            }, new ErrorListener() {
+                @Override
+                public void onError(RequestError error) {
+                    future.fail(error);
+                }
+            }));
+            return future;
+        }
+
+        @SuppressWarnings("unchecked") // a result of the request is always of its ResultType
+        private Call send(final ResultListener<ResultType> listener, final ErrorListener errorListener) {
+            final Dispatcher dispatcher = getDispatcher();
+            final GenericUrl requestUrl = buildRequestUrl(url);
+            final String key = ResponseCache.canonicalize(requestUrl);
+
+            final Call[] handle = new Call[1];
+            final SingleFlight.Listener<ResultBase> waiter = new SingleFlight.Listener<ResultBase>() {
+                @Override
+                public void onComplete(final ResultBase result) {
+                    dispatcher.deliver(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (handle[0].isCanceled()) {
+                                return;
+                            }
+                            if (result.isSuccess()) {
+                                listener.onComplete((ResultType) result);
+                            } else {
+                                errorListener.onError(result.getError());
+                            }
+                        }
+                    });
+                }
+            };
+
+            final CancellableCall call;
+            final SingleFlight<String, ResultBase>.Ticket ticket;
+            if (isCoalescable()) {
+                ticket = requestFlights.join(key, waiter);
+                handle[0] = ticket;
+                if (!ticket.isLeader()) {
+                    return ticket; // the same request is in flight
+                }
+                call = ticket.getSharedCall();
+            } else {
+                ticket = null;
+                call = new CancellableCall();
+                handle[0] = call;
+            }
+
+            final RequestMetrics metrics = new RequestMetrics(endpoint);
+            dispatcher.execute(priority, new Runnable() {
+                @Override
+                public void run() {
+                    if (call.isCanceled()) {
+                        return;
+                    }
+                    fetch(requestUrl, key, call, metrics, new ResultListener<ResultType>() {
+                        @Override
+                        public void onComplete(ResultType result) {
+                            if (ticket != null) {
+                                requestFlights.complete(ticket, result);
+                            } else {
+                                waiter.onComplete(result);
+                            }
+                        }
+                    });
+                }
+            });
+            return handle[0];
+        }
+
+        /**
+         * @return true if concurrent identical requests can share one network call and its result
+         */
+        protected boolean isCoalescable() {
+            return true;
+        }
+
+        /**
+         * Fetches the result, and calls <code>listener</code> in the network thread which completes it.
+         * It is not always the calling thread, e.g. when a hedged request wins.
+         */
+        // metrics must be created when the request is submitted to the dispatcher
+        protected void fetch(GenericUrl requestUrl, String cacheKey, CancellableCall call, final RequestMetrics metrics,
+                             final ResultListener<ResultType> listener) {
+            metrics.start();
+            fetchFromCacheOrNetwork(requestUrl, cacheKey, call, metrics, new ResultListener<ResultType>() {
+                @Override
+                public void onComplete(ResultType result) {
+                    final MetricsListener currentMetricsListener = metricsListener;
+                    if (currentMetricsListener != null) {
+                        metrics.complete(result);
+                        currentMetricsListener.onRequestCompleted(metrics);
+                    }
+                    listener.onComplete(result);
+                }
+            });
+        }
+
+        private void fetchFromCacheOrNetwork(GenericUrl requestUrl, String cacheKey, CancellableCall call, RequestMetrics metrics,
+                                             ResultListener<ResultType> listener) {
+            final ResponseCache cache = responseCache;
+
+            if (cache != null) {
+                final byte[] body = cache.get(cacheKey);
+                if (body != null) {
+                    try {
+                        final ResultType result = parse(new ByteArrayInputStream(body), UTF_8, call);
+                        metrics.cacheHit = true;
+                        listener.onComplete(result);
+                        return;
+                    } catch (IOException e) {
+                        cache.remove(cacheKey);
+                    }
+                }
+            }
+
+            new Attempts(requestUrl, cacheKey, call, retryPolicy, metrics, listener).run();
+        }
+
+        // reserves a token of the rate limiter, and returns milliseconds to wait for it
+        private long reserveToken() throws RateLimiter.RejectedException {
+            final RateLimiter limiter = rateLimiter;
+            return limiter != null ? limiter.acquire(endpoint) : 0;
+        }
+
+        private ResultType createCanceledResult() {
+            return createErrorResult(new RequestError("Failed to request " + url.getRawPath(), new InterruptedIOException("Canceled"), null));
+        }
+
+        /**
+         * Runs attempts until one succeeds or the retry policy, which may be null, gives up.
+         * Waiting for the rate limiter or a backoff reschedules it on the timer of the dispatcher,
+         * so that it does not hold a network thread.
+         */
+        private class Attempts implements Runnable {
+            private final GenericUrl requestUrl;
+            private final String cacheKey;
+            private final CancellableCall call;
+            private final RetryPolicy policy;
+            private final RequestMetrics metrics;
+            private final ResultListener<ResultType> listener;
+
+            private int attempt;
+            private boolean tokenReserved;
+            private long startedAt;
+
+            Attempts(GenericUrl requestUrl, String cacheKey, CancellableCall call, RetryPolicy policy, RequestMetrics metrics,
+                     ResultListener<ResultType> listener) {
+                this.requestUrl = requestUrl;
+                this.cacheKey = cacheKey;
+                this.call = call;
+                this.policy = policy;
+                this.metrics = metrics;
+                this.listener = listener;
+            }
+
+            @Override
+            public void run() {
+                if (call.isCanceled()) {
+                    listener.onComplete(createCanceledResult());
+                    return;
+                }
+
+                if (tokenReserved) {
+                    tokenReserved = false;
+                } else {
+                    attempt++;
+                    metrics.attempts = attempt;
+                    final long waitMillis;
+                    try {
+                        waitMillis = reserveToken();
+                    } catch (RateLimiter.RejectedException e) {
+                        onComplete(createErrorResult(new RequestError("Failed to request " + url.getRawPath(), e, null)));
+                        return;
+                    }
+                    if (waitMillis > 0) {
+                        tokenReserved = true;
+                        getDispatcher().schedule(priority, this, waitMillis);
+                        return;
+                    }
+                }
+
+                startedAt = System.currentTimeMillis();
+                final long hedgeDelay = policy != null ? policy.getHedgeDelay(endpoint) : -1;
+                if (hedgeDelay >= 0) {
+                    new HedgedAttempt(requestUrl, cacheKey, call, metrics, this).start(hedgeDelay);
+                } else {
+                    onComplete(fetchFromNetwork(requestUrl, cacheKey, call, metrics));
+                }
+            }
+
+            void onComplete(ResultType result) {
+                if (policy == null) {
+                    listener.onComplete(result);
+                    return;
+                }
+                if (result.isSuccess()) {
+                    policy.recordLatency(endpoint, System.currentTimeMillis() - startedAt);
+                }
+
+                if (attempt >= policy.getMaxAttempts() || call.isCanceled() || !policy.isRetryable(result)) {
+                    listener.onComplete(result);
+                    return;
+                }
+                getDispatcher().schedule(priority, this, policy.getBackoff(attempt));
+            }
+        }
+
+        // races the request with a duplicate sent after a delay; the first success wins, and the other one is cancelled
+        private class HedgedAttempt {
+            private final GenericUrl requestUrl;
+            private final String cacheKey;
+            private final CancellableCall call;
+            private final RequestMetrics metrics;
+            private final Attempts attempts;
+
+            private final CancellableCall firstCall = new CancellableCall();
+            private final CancellableCall hedgeCall = new CancellableCall();
+            private final RequestMetrics firstMetrics = new RequestMetrics(endpoint);
+            private final RequestMetrics hedgeMetrics = new RequestMetrics(endpoint);
+
+            // guarded by this
+            private int running = 1;
+            private boolean done;
+            private ResultType firstResult;
+
+            HedgedAttempt(GenericUrl requestUrl, String cacheKey, CancellableCall call, RequestMetrics metrics, Attempts attempts) {
+                this.requestUrl = requestUrl;
+                this.cacheKey = cacheKey;
+                this.call = call;
+                this.metrics = metrics;
+                this.attempts = attempts;
+            }
+
+            // runs the first request in the calling thread, and the hedged one in another network thread
+            void start(long hedgeDelay) {
+                call.setAbortAction(new Runnable() {
+                    @Override
+                    public void run() {
+                        firstCall.cancel();
+                        hedgeCall.cancel();
+                    }
+                });
+                getDispatcher().schedule(priority, new Runnable() {
+                    private boolean tokenReserved;
+
+                    @Override
+                    public void run() {
+                        synchronized (HedgedAttempt.this) {
+                            if (done) {
+                                return;
+                            }
+                        }
+                        if (!tokenReserved) {
+                            final long waitMillis;
+                            try {
+                                waitMillis = reserveToken();
+                            } catch (RateLimiter.RejectedException e) {
+                                return; // the first request goes on alone
+                            }
+                            if (waitMillis > 0) {
+                                tokenReserved = true;
+                                getDispatcher().schedule(priority, this, waitMillis);
+                                return;
+                            }
+                        }
+                        synchronized (HedgedAttempt.this) {
+                            if (done) {
+                                return;
+                            }
+                            running++;
+                        }
+                        onComplete(fetchFromNetwork(requestUrl, cacheKey, hedgeCall, hedgeMetrics), true);
+                    }
+                }, hedgeDelay);
+                onComplete(fetchFromNetwork(requestUrl, cacheKey, firstCall, firstMetrics), false);
+            }
+
+            private void onComplete(ResultType result, boolean hedged) {
+                synchronized (this) {
+                    running--;
+                    if (done) {
+                        return; // the other one has won
+                    }
+                    if (!hedged) {
+                        firstResult = result;
+                    }
+                    if (!result.isSuccess() && running > 0) {
+                        return; // the other one may still succeed
+                    }
+                    done = true;
+                }
+
+                final boolean hedgeWon = hedged && result.isSuccess();
+                // the loser may be stuck before its response headers, so it is not waited for
+                (hedgeWon ? firstCall : hedgeCall).cancel();
+                call.clearAbortAction();
+
+                metrics.setNetworkPhasesOf(hedgeWon ? hedgeMetrics : firstMetrics);
+                metrics.hedged = hedgeWon;
+                attempts.onComplete(hedgeWon ? result : firstResult);
+            }
+        }
+
+        private ResultType fetchFromNetwork(GenericUrl requestUrl, String cacheKey, CancellableCall call, RequestMetrics metrics) {
+            final ResponseCache cache = responseCache;
+            final RateLimiter limiter = rateLimiter;
+            HttpRequest request = null;
+            metrics.resetNetworkPhases();
+            try {
+                request = requestFactory.buildGetRequest(requestUrl);
+                final long sentAt = System.nanoTime();
+                final HttpResponse response = request.execute();
+                final long receivedAt = System.nanoTime();
+                metrics.timeToFirstByteNanos = receivedAt - sentAt;
+                call.attach(response);
+                final CountingInputStream content = new CountingInputStream(response.getContent());
+                final ResultType result;
+                try {
+                    if (cache != null) {
+                        final CapturingInputStream capturingContent = new CapturingInputStream(content);
+                        result = parse(capturingContent, response.getContentCharset(), call);
+                        if (result.isSuccess()) {
+                            cache.put(cacheKey, endpoint, capturingContent.toByteArray());
+                        }
+                    } else {
+                        result = parse(content, response.getContentCharset(), call);
+                    }
+                } finally {
+                    call.clearAbortAction();
+                }
+                metrics.parseNanos = System.nanoTime() - receivedAt;
+                final Long contentLength = response.getHeaders().getContentLength();
+                // the raw stream is not exposed once HttpResponse#getContent() inflates it, so this is what the server declared
+                metrics.compressedBytes = contentLength != null ? contentLength : content.getCount();
+                metrics.uncompressedBytes = content.getCount();
+                transferStats.record(endpoint, metrics.compressedBytes, metrics.uncompressedBytes);
+                if (limiter != null) {
+                    limiter.onResponse(endpoint, result.getStatus());
+                }
+                if (!result.isSuccess()) {
+                    result.setError(new RequestError("Request failure", null, request));
+                }
+                return result;
+            } catch (Exception e) {
+                return createErrorResult(new RequestError("Failed to request " + url.getRawPath(), e, request));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        protected ResultType parse(InputStream content, Charset charset, Call call) throws IOException {
+            return (ResultType) parser.parseAndClose(content, charset, getResultTypeClass());
+        }
+
+        abstract protected Class<?> getResultTypeClass();
+
+        abstract protected ResultType createErrorResult(RequestError error);
+    }
+
+    private abstract class SearchBuilderBase<Derived extends SearchBuilderBase> extends RequestBuilderBase<Derived, SearchResult> {
+        protected PlaceListener placeListener;
+
+        protected Set<PlaceField> fields;
+
+        SearchBuilderBase(Endpoint endpoint, GenericUrl url) {
+            super(endpoint, url);
+        }
+
+        /**
+         * Streams places to <code>listener</code> while the response is being downloaded.
+         * In this mode <code>SearchResult.results</code> given to the ResultListener is empty,
+         * so that places are not retained.
+         * Places are delivered in the callback executor, before the ResultListener is called.
+         */
+        public Derived setPlaceListener(PlaceListener listener) {
+            placeListener = listener;
+            return self();
+        }
+
+        /**
+         * Sends the request and follows <code>next_page_token</code> in background, up to <code>maxPages</code> pages.
+         * The next page is prefetched as soon as a page arrives, while the listener is handling it.
+         * A page token which Google has not activated yet is retried with exponential backoff.
+         * With {@link #setPlaceListener(PlaceListener)}, places of all the pages are streamed to it.
+         *
+         * @return A handle to stop paging
+         */
+        public Call getAll(int maxPages, PageListener listener) {
+            final PageSequence pages = new PageSequence(buildRequestUrl(url), maxPages, listener, errorListener);
+            pages.enqueue(0);
+            return pages.call;
+        }
+
+        // fetches pages one by one, rescheduling itself for the next page
+        private class PageSequence implements Runnable, ResultListener<SearchResult> {
+            final CancellableCall call = new CancellableCall();
+
+            private final GenericUrl firstPageUrl;
+            private final int maxPages;
+            private final PageListener listener;
+            private final ErrorListener errorListener;
+            private final Dispatcher dispatcher = getDispatcher();
+
+            private String pageToken;
+            private int pageCount;
+            private int attempts;
+            private long enqueuedAt;
+
+            PageSequence(GenericUrl firstPageUrl, int maxPages, PageListener listener, ErrorListener errorListener) {
+                this.firstPageUrl = firstPageUrl;
+                this.maxPages = maxPages;
+                this.listener = listener;
+                this.errorListener = errorListener;
+            }
+
+            void enqueue(long delayMillis) {
+                enqueuedAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+                dispatcher.schedule(priority, this, delayMillis);
+            }
+
+            @Override
+            public void run() {
+                if (call.isCanceled()) {
+                    return;
+                }
+
+                final GenericUrl pageUrl = firstPageUrl.clone();
+                if (pageToken != null) {
+                    pageUrl.put("pagetoken", pageToken);
+                }
+                fetch(pageUrl, ResponseCache.canonicalize(pageUrl), call, new RequestMetrics(endpoint, enqueuedAt), this);
+            }
+
+            @Override
+            public void onComplete(final SearchResult page) {
+                if (pageToken != null && SearchResult.INVALID_REQUEST.equals(page.status)
+                    && ++attempts < MAX_PAGE_TOKEN_ATTEMPTS) {
+                    enqueue(pageTokenDelay << attempts); // not activated yet
+                    return;
+                }
+
+                pageCount++;
+                final boolean hasNextPage = page.isSuccess() && page.next_page_token != null && pageCount < maxPages;
+                dispatcher.deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (call.isCanceled()) {
+                            return;
+                        }
+                        if (page.isSuccess()) {
+                            listener.onPage(page, hasNextPage);
+                        } else {
+                            errorListener.onError(page.getError());
+                        }
+                    }
+                });
+
+                if (hasNextPage) {
+                    pageToken = page.next_page_token;
+                    attempts = 0;
+                    enqueue(pageTokenDelay);
+                }
+            }
+        }
+
+        /**
+         * Projects places to <code>fields</code>. The other members are skipped while parsing and left null.
+         * Responses are cached in full, so a later request with other fields can still be served from the cache.
+         * Projected places are not added to the place index.
+         */
+        public Derived setFields(PlaceField... fields) {
+            this.fields = EnumSet.noneOf(PlaceField.class);
+            Collections.addAll(this.fields, fields);
+            return self();
+        }
+
+        @Override
+        protected void fetch(GenericUrl requestUrl, String cacheKey, CancellableCall call, RequestMetrics metrics,
+                             final ResultListener<SearchResult> listener) {
+            super.fetch(requestUrl, cacheKey, call, metrics, new ResultListener<SearchResult>() {
+                @Override
+                public void onComplete(SearchResult result) {
+                    final PlaceIndex index = placeIndex;
+                    // projected places would replace complete ones, or pile up when they have no id
+                    if (index != null && result.isSuccess() && placeListener == null && fields == null) {
+                        index.addAll(result.results);
+                        if (result.next_page_token == null) {
+                            onCompleteResult(index);
+                        }
+                    }
+                    listener.onComplete(result);
+                }
+            });
+        }
+
+        /**
+         * Called when all the places of the request have been added to the index.
+         */
+        protected void onCompleteResult(PlaceIndex index) {
+        }
+
+        @Override
+        protected SearchResult parse(InputStream content, Charset charset, Call call) throws IOException {
+            final JsonParser parser = jsonFactory.createJsonParser(content, charset);
+            try {
+                return new SearchResultReader(parser, fields).read(createDeliveringPlaceListener(call));
+            } finally {
+                parser.close();
+            }
+        }
+
+        @Override
+        protected boolean isCoalescable() {
+            // streamed places are delivered only to their own listener, and projected places only fit their own request
+            return placeListener == null && fields == null;
+        }
+
+        private PlaceListener createDeliveringPlaceListener(final Call call) {
+            if (placeListener == null) {
+                return null;
+            }
+
+            final Dispatcher dispatcher = getDispatcher();
+            final PlaceListener listener = placeListener;
+            return new PlaceListener() {
+                @Override
+                public void onPlace(final Place place) {
+                    dispatcher.deliver(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (!call.isCanceled()) {
+                                listener.onPlace(place);
+                            }
+                        }
+                    });
+                }
+            };
+        }
+
+        public Derived setMinPrice(int minPrice) {
+            assert 0 <= minPrice && minPrice <= 4;
+            url.put("mminprice", minPrice);
+            return self();
+        }
+
+        public Derived setMaxPrice(int maxPrice) {
+            assert 0 <= maxPrice && maxPrice <= 4;
+            url.put("maxprice", maxPrice);
+            return self();
+        }
+
+        /**
+         * One or more terms to be matched against the names of Places, separated with a space character. Results will be restricted to those containing the passed name values. Note that a Place may have additional names associated with it, beyond its listed name. The API will try to match the passed name value against all of these names; as a result, Places may be returned in the results whose listed names do not match the search term, but whose associated names do.
+         */
+        public Derived setName(String name) {
+            url.put("name", name);
+            return self();
+        }
+
+        public Derived setRankBy(PlaceListOrder rankBy) {
+            url.put("rankby", rankBy.name());
+            return self();
+        }
+
+        public Derived setOpenNow(boolean openNow) {
+            url.put("opennow", openNow);
+            return self();
+        }
+
+        public Derived setPageToken(String pageToken) {
+            url.put("pagetoken", pageToken);
+            return self();
+        }
+
+        /**
+         * This is experimental and is only available to Places API enterprise customers.
+         */
+        public Derived setZagatSelected(boolean zagatSelected) {
+            url.put("zagatselected", zagatSelected);
+            return self();
+        }
+
+        /**
+         * @param types List of types listed in https://developers.google.com/places/documentation/supported_types
+         */
+        public Derived setTypes(String... types) {
+            url.put("types", join("|", types));
+            return self();
+        }
+
+        @Override
+        protected Class<?> getResultTypeClass() {
+            return SearchResult.class;
+        }
+
+        @Override
+        protected SearchResult createErrorResult(RequestError error) {
+            SearchResult errorResult = new SearchResult();
+            errorResult.setError(error);
+            return errorResult;
+        }
+    }
+
+    public class NearbySearchBuilder extends SearchBuilderBase<NearbySearchBuilder> {
+        private final double latitude;
+        private final double longitude;
+        private final double radiusInMeter;
+
+        /**
+         * Creates a request builder for "nearby search". Its parameters are mandatory.
+         */
+        public NearbySearchBuilder(double latitude, double longitude, double radiusInMeter, boolean sensor) {
+            super(Endpoint.NEARBY_SEARCH, new GenericUrl(apiBase + NEARBY_SEARCH_PATH));
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radiusInMeter = radiusInMeter;
+
+            url.put("location", latitude + "," + longitude);
+            url.put("radius", radiusInMeter);
+            url.put("sensor", sensor);
+        }
+
+        public NearbySearchBuilder setKeyword(String keyword) {
+            url.put("keyword", keyword);
+            return this;
+        }
+
+        @Override
+        protected void onCompleteResult(PlaceIndex index) {
+            // only a search without filters finds all the places in the circle
+            for (String name : url.keySet()) {
+                if (!UNFILTERED_PARAMETERS.contains(name)) {
+                    return;
+                }
+            }
+            index.markCovered(latitude, longitude, radiusInMeter);
+        }
+
+        @Override
+        protected Class<?> getResultTypeClass() {
+            return SearchResult.class;
+        }
+
+        @Override
+        protected SearchResult createErrorResult(RequestError error) {
+            SearchResult errorResult = new SearchResult();
+            errorResult.setError(error);
+            return errorResult;
+        }
+    }
+
+    public class TextSearchBuilder extends SearchBuilderBase<TextSearchBuilder> {
+        /**
+         * Creates a request builder for "text search". Its parameters are mandatory.
+         */
+        public TextSearchBuilder(String query, boolean sensor) {
+            super(Endpoint.TEXT_SEARCH, new GenericUrl(apiBase + TEXT_SEARCH_PATH));
+            url.put("query", query);
+            url.put("sensor", sensor);
+        }
+
+        public TextSearchBuilder setLocation(double latitude, double longitude) {
+            url.put("location", latitude + "," + longitude);
+            return this;
+        }
+
+        public TextSearchBuilder setRadius(double radiusInMeter) {
+            url.put("radius", radiusInMeter);
+            return this;
+        }
+    }
+
+    public class RadarSearchBuilder extends SearchBuilderBase<RadarSearchBuilder> {
+        /**
+         * Creates a request builder for "radar search". Its parameters are mandatory.
+         */
+        public RadarSearchBuilder(double latitude, double longitude, double radiusInMeter, boolean sensor) {
+            super(Endpoint.RADAR_SEARCH, new GenericUrl(apiBase + RADAR_SEARCH_PATH));
+
+            url.put("location", latitude + "," + longitude);
+            url.put("radius", radiusInMeter);
+            url.put("sensor", sensor);
+        }
+
+        public RadarSearchBuilder setKeyword(String keyword) {
+            url.put("keyword", keyword);
+            return this;
+        }
+
+        /**
+         * Sends the request in background, and gives the places as a {@link CompactPlaceList},
+         * e.g. to keep many results for map markers.
+         *
+         * @return A handle to cancel the request
+         */
+        public Call getCompact(ResultListener<CompactPlaceList> listener) {
+            return new CompactSearchBuilder(this).get(listener);
+        }
+
+        /**
+         * Sends the request in background, and returns the places as a future of {@link CompactPlaceList}.
+         */
+        public PlacesFuture<CompactPlaceList> getCompactAsync() {
+            return new CompactSearchBuilder(this).getAsync();
+        }
+    }
+
+    // runs the request of a search builder, reading the response into a CompactPlaceList
+    private class CompactSearchBuilder extends RequestBuilderBase<CompactSearchBuilder, CompactPlaceList> {
+        CompactSearchBuilder(SearchBuilderBase<?> search) {
+            super(search.endpoint, search.url.clone());
+            errorListener = search.errorListener;
+            priority = search.priority;
+        }
+
+        @Override
+        protected CompactPlaceList parse(InputStream content, Charset charset, Call call) throws IOException {
+            final JsonParser parser = jsonFactory.createJsonParser(content, charset);
+            try {
+                return new CompactPlaceListReader(parser, stringPool).read();
+            } finally {
+                parser.close();
+            }
+        }
+
+        @Override
+        protected boolean isCoalescable() {
+            return false; // an identical SearchResult request may be in flight
+        }
+
+        @Override
+        protected Class<?> getResultTypeClass() {
+            return CompactPlaceList.class;
+        }
+
+        @Override
+        protected CompactPlaceList createErrorResult(RequestError error) {
+            CompactPlaceList errorResult = new CompactPlaceList();
+            errorResult.setError(error);
+            return errorResult;
+        }
+    }
+
+    public class DetailBuilder extends RequestBuilderBase<DetailBuilder, PlaceDetail> {
+        DetailBuilder(String reference, boolean sensor) {
+            super(Endpoint.DETAILS, new GenericUrl(apiBase + DETAILS_PATH));
+
+            url.put("reference", reference);
+            url.put("sensor", sensor);
+        }
+
+        @Override
+        protected PlaceDetail parse(InputStream content, Charset charset, Call call) throws IOException {
+            final JsonParser parser = jsonFactory.createJsonParser(content, charset);
+            try {
+                return new PlaceDetailReader(parser).read();
+            } finally {
+                parser.close();
+            }
+        }
+
+        @Override
+        protected Class<?> getResultTypeClass() {
+            return PlaceDetail.class;
+        }
+
+        @Override
+        protected PlaceDetail createErrorResult(RequestError error) {
+            PlaceDetail errorResult = new PlaceDetail();
+            errorResult.setError(error);
+            return errorResult;
+        }
+    }
+
+    /**
+     * Fetches details of many places at once, with a bounded number of requests in flight.
+     * All the requests share the transport of this client and its connection pool.
+     */
+    public class DetailBatchBuilder {
+        private final Collection<String> references;
+        private final boolean sensor;
+
+        private int parallelism = DEFAULT_BATCH_PARALLELISM;
+        private RequestPriority priority = RequestPriority.NORMAL;
+
+        DetailBatchBuilder(Collection<String> references, boolean sensor) {
+            this.references = new LinkedHashSet<>(references); // dedupes repeated references
+            this.sensor = sensor;
+        }
+
+        /**
+         * @param parallelism The maximum number of requests in flight for this batch
+         */
+        public DetailBatchBuilder setParallelism(int parallelism) {
+            assert parallelism > 0;
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public DetailBatchBuilder setPriority(RequestPriority priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        /**
+         * Sends the requests in background. The listener is called in the callback executor of the dispatcher.
+         *
+         * @return A handle to cancel the requests which are not completed yet
+         */
+        public Call get(BatchListener listener) {
+            final DetailBatch batch = new DetailBatch(references, sensor, priority, listener);
+            batch.start(parallelism);
+            return batch;
+        }
+    }
+
+    // runs at most N requests at once; each completed request starts the next one
+    private class DetailBatch implements Call {
+        private final Collection<String> references;
+        private final Queue<String> pending;
+        private final boolean sensor;
+        private final RequestPriority priority;
+        private final BatchListener listener;
+        private final Dispatcher dispatcher = getDispatcher();
+
+        // filled as the requests complete, in any order
+        private final Map<String, PlaceDetail> details = new HashMap<>();
+        private final Map<String, RequestError> errors = new HashMap<>();
+        private final Set<CancellableCall> calls = new HashSet<>();
+        private int remaining;
+        private volatile boolean canceled;
+
+        DetailBatch(Collection<String> references, boolean sensor, RequestPriority priority, BatchListener listener) {
+            this.references = references;
+            pending = new ArrayDeque<>(references);
+            remaining = references.size();
+            this.sensor = sensor;
+            this.priority = priority;
+            this.listener = listener;
+        }
+
+        void start(int parallelism) {
+            if (remaining == 0) {
+                deliverCompletion();
+                return;
+            }
+            for (int i = 0; i < parallelism; i++) {
+                scheduleNext();
+            }
+        }
+
+        private void scheduleNext() {
+            final String reference;
+            final CancellableCall call = new CancellableCall();
+            synchronized (this) {
+                reference = pending.poll();
+                if (reference == null || canceled) {
+                    return;
+                }
+                calls.add(call);
+            }
+
+            final RequestMetrics metrics = new RequestMetrics(Endpoint.DETAILS);
+            dispatcher.execute(priority, new Runnable() {
+                @Override
+                public void run() {
+                    final DetailBuilder request = new DetailBuilder(reference, sensor);
+                    final GenericUrl requestUrl = buildRequestUrl(request.url);
+                    if (call.isCanceled()) {
+                        onComplete(reference, null, call);
+                        return;
+                    }
+                    request.fetch(requestUrl, ResponseCache.canonicalize(requestUrl), call, metrics, new ResultListener<PlaceDetail>() {
+                        @Override
+                        public void onComplete(PlaceDetail detail) {
+                            DetailBatch.this.onComplete(reference, detail, call);
+                        }
+                    });
+                }
+            });
+        }
+
+        private void onComplete(final String reference, final PlaceDetail detail, CancellableCall call) {
+            final boolean last;
+            synchronized (this) {
+                calls.remove(call);
+                if (canceled || detail == null) {
+                    return;
+                }
+                if (detail.isSuccess()) {
+                    details.put(reference, detail);
+                } else {
+                    errors.put(reference, detail.getError());
+                }
+                last = --remaining == 0;
+            }
+
+            if (detail.isSuccess()) {
+                dispatcher.deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!canceled) {
+                            listener.onDetail(reference, detail);
+                        }
+                    }
+                });
+            }
+            if (last) {
+                deliverCompletion();
+            } else {
+                scheduleNext();
+            }
+        }
+
+        private void deliverCompletion() {
+            final Map<String, PlaceDetail> orderedDetails = new LinkedHashMap<>();
+            final Map<String, RequestError> orderedErrors = new LinkedHashMap<>();
+            synchronized (this) {
+                for (String reference : references) {
+                    if (details.containsKey(reference)) {
+                        orderedDetails.put(reference, details.get(reference));
+                    } else {
+                        orderedErrors.put(reference, errors.get(reference));
+                    }
+                }
+            }
+
+            dispatcher.deliver(new Runnable() {
+                @Override
+                public void run() {
+                    if (!canceled) {
+                        listener.onComplete(orderedDetails, orderedErrors);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void cancel() {
+            final List<CancellableCall> inFlight;
+            synchronized (this) {
+                canceled = true;
+                pending.clear();
+                inFlight = new ArrayList<>(calls);
+            }
+            for (CancellableCall call : inFlight) {
+                call.cancel();
+            }
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+    }
+
+    public NearbySearchBuilder nearBySearch(double latitude, double longitude, double radiusInMeter, boolean sensor) {
+        return new NearbySearchBuilder(latitude, longitude, radiusInMeter, sensor);
+    }
+
+    public TextSearchBuilder textSearch(String query, boolean sensor) {
+        return new TextSearchBuilder(query, sensor);
+    }
+
+    public RadarSearchBuilder radarSearch(double latitude, double longitude, double radiusInMeter, boolean sensor) {
+        return new RadarSearchBuilder(latitude, longitude, radiusInMeter, sensor);
+    }
+
+    public DetailBuilder detail(String reference, boolean sensor) {
+        return new DetailBuilder(reference, sensor);
+    }
+
+    /**
+     * @param references References of places, e.g. <code>Place.reference</code> of a search result. Duplicates are fetched once.
+     */
+    public DetailBatchBuilder details(Collection<String> references, boolean sensor) {
+        return new DetailBatchBuilder(references, sensor);
+    }
+
+    private static String join(String separator, String[] items) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < items.length; i++) {
+            if (i > 0) {
+                builder.append(separator);
+            }
+            builder.append(items[i]);
+        }
+        return builder.toString();
+    }
+
+    private GenericUrl buildRequestUrl(GenericUrl url) {
+        final GenericUrl requestUrl = url.clone();
+        requestUrl.put("key", apiKey);
+        requestUrl.put("language", language); // it can be overridden
+        return requestUrl;
+    }
+
+    /**
+     * A request whose result is returned as a {@link PlacesFuture}, e.g. to be adapted to other async libraries.
+     */
+    public interface AsyncRequest<T> {
+        PlacesFuture<T> getAsync();
+    }
+
+    public interface ResultListener<T> {
+        void onComplete(T result);
+    }
+
+    public interface PageListener {
+        /**
+         * @param hasNextPage true if the next page is coming
+         */
+        void onPage(SearchResult page, boolean hasNextPage);
+    }
+
+    public interface BatchListener {
+        /**
+         * Called for each place as soon as its detail arrives.
+         */
+        void onDetail(String reference, PlaceDetail detail);
+
+        /**
+         * Called once after all the requests, with the details and the errors keyed by their references,
+         * in the order of the references given to the batch.
+         */
+        void onComplete(Map<String, PlaceDetail> details, Map<String, RequestError> errors);
+    }
+
+    public interface PlaceListener {
+        void onPlace(Place place);
+    }
+
+    public interface ErrorListener {
+        void onError(RequestError error);
+    }
+
+    // default ErrorListener which logs errors
+    private static class DefaultErrorListener implements ErrorListener {
+        private static DefaultErrorListener instance = new DefaultErrorListener();
+
+        private static final Logger logger = Logger.getLogger("GooglePlaces");
+
+        public static DefaultErrorListener getInstance() {
+            return instance;
+        }
+
+        @Override
+        public void onError(RequestError error) {
+            // transient failures have been retried, so it must not crash the app
+            logger.log(Level.WARNING, "Uncaught RequestError", error);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.gfx.googleplaces;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.JsonFactory;
+
+/**
+ * Google Places API client for the JVM, e.g. backend batch jobs.
+ * Results are delivered in the network threads unless a {@link Dispatcher} with another callback executor is set.
+ */
+public class GooglePlacesClient extends GooglePlacesBase<GooglePlacesClient> {
+    /**
+     * @param jsonFactory A JSON factory, e.g. JacksonFactory or GsonFactory
+     */
+    public GooglePlacesClient(String googleApiKey, JsonFactory jsonFactory) {
+        this(googleApiKey, new NetHttpTransport(), jsonFactory);
+    }
+
+    public GooglePlacesClient(String googleApiKey, HttpTransport transport, JsonFactory jsonFactory) {
+        super(googleApiKey, transport, jsonFactory);
+    }
+}
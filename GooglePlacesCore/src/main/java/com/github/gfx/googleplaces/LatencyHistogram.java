@@ -0,0 +1,123 @@
+package com.github.gfx.googleplaces;
+
+/**
+ * A histogram of values with a fixed relative precision over a wide range, in the manner of HdrHistogram.
+ * <p/>
+ * Values are counted in buckets of powers of two, each split into linear sub-buckets,
+ * so recording takes constant time and memory doesn't grow with the number of values.
+ * Values above the highest trackable value are recorded as that value.
+ */
+public class LatencyHistogram {
+    private final long highestTrackableValue;
+    private final int subBucketHalfCountMagnitude;
+    private final int subBucketHalfCount;
+    private final long subBucketMask;
+
+    private final long[] counts;
+    private long totalCount;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * @param highestTrackableValue    The highest value to track, e.g. an hour in microseconds
+     * @param significantDecimalDigits The number of significant decimal digits to keep, from 1 to 5
+     */
+    public LatencyHistogram(long highestTrackableValue, int significantDecimalDigits) {
+        assert 1 <= significantDecimalDigits && significantDecimalDigits <= 5;
+        this.highestTrackableValue = highestTrackableValue;
+
+        final long largestValueWithSingleUnitResolution = 2 * (long) Math.pow(10, significantDecimalDigits);
+        final int subBucketCountMagnitude = (int) Math.ceil(Math.log(largestValueWithSingleUnitResolution) / Math.log(2));
+        subBucketHalfCountMagnitude = subBucketCountMagnitude - 1;
+        final int subBucketCount = 1 << subBucketCountMagnitude;
+        subBucketHalfCount = subBucketCount / 2;
+        subBucketMask = subBucketCount - 1;
+
+        int bucketCount = 1;
+        long trackable = subBucketCount;
+        while (trackable <= highestTrackableValue) {
+            trackable <<= 1;
+            bucketCount++;
+        }
+        counts = new long[(bucketCount + 1) * subBucketHalfCount];
+    }
+
+    public synchronized void recordValue(long value) {
+        final long clamped = Math.min(Math.max(value, 0), highestTrackableValue);
+        counts[countsIndex(clamped)]++;
+        totalCount++;
+        sum += clamped;
+        min = Math.min(min, clamped);
+        max = Math.max(max, clamped);
+    }
+
+    private int countsIndex(long value) {
+        final int bucketIndex = (64 - Long.numberOfLeadingZeros(value | subBucketMask)) - (subBucketHalfCountMagnitude + 1);
+        final int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((bucketIndex + 1) << subBucketHalfCountMagnitude) + (subBucketIndex - subBucketHalfCount);
+    }
+
+    // the highest value which is equivalent to the values counted at the index
+    private long highestEquivalentValue(int index) {
+        int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+        long subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+        if (bucketIndex < 0) {
+            subBucketIndex -= subBucketHalfCount;
+            bucketIndex = 0;
+        }
+        return ((subBucketIndex + 1) << bucketIndex) - 1;
+    }
+
+    /**
+     * @param percentile A percentile from 0 to 100
+     * @return The value which <code>percentile</code> percent of the recorded values are less than or equal to,
+     * within the precision of this histogram, or 0 if nothing is recorded
+     */
+    public synchronized long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        final long countAtPercentile = Math.max((long) Math.ceil(Math.min(percentile, 100) / 100 * totalCount), 1);
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            count += counts[i];
+            if (count >= countAtPercentile) {
+                return Math.min(highestEquivalentValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    public synchronized long getTotalCount() {
+        return totalCount;
+    }
+
+    public synchronized double getMean() {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    public synchronized long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+        totalCount = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("count=%d mean=%.1f p50=%d p90=%d p99=%d max=%d",
+            totalCount, getMean(), getValueAtPercentile(50), getValueAtPercentile(90), getValueAtPercentile(99), max);
+    }
+}
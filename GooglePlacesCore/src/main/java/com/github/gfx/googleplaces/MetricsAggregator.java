@@ -0,0 +1,119 @@
+package com.github.gfx.googleplaces;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link MetricsListener} which aggregates request metrics per {@link Endpoint} into histograms and counters,
+ * to be polled and exported, e.g. to a dashboard.
+ * <p/>
+ * Histograms are in microseconds, from 1us to an hour with 3 significant digits.
+ */
+public class MetricsAggregator implements MetricsListener {
+    public enum Phase {
+        QUEUE,
+        TIME_TO_FIRST_BYTE,
+        PARSE,
+        TOTAL,
+    }
+
+    public enum Counter {
+        REQUESTS,
+        ERRORS,
+        CACHE_HITS,
+        RETRIES,
+        HEDGED,
+        COMPRESSED_BYTES,
+        UNCOMPRESSED_BYTES,
+    }
+
+    private static final long HIGHEST_TRACKABLE_MICROS = 60L * 60 * 1000 * 1000;
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<Endpoint, Map<Phase, LatencyHistogram>> histograms = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, AtomicLongArray> counters = new EnumMap<>(Endpoint.class);
+
+    public MetricsAggregator() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            final Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+            for (Phase phase : Phase.values()) {
+                phases.put(phase, new LatencyHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS));
+            }
+            histograms.put(endpoint, phases);
+            counters.put(endpoint, new AtomicLongArray(Counter.values().length));
+        }
+    }
+
+    @Override
+    public void onRequestCompleted(RequestMetrics metrics) {
+        final Endpoint endpoint = metrics.getEndpoint();
+        final Map<Phase, LatencyHistogram> phases = histograms.get(endpoint);
+        phases.get(Phase.QUEUE).recordValue(metrics.getQueueNanos() / 1000);
+        phases.get(Phase.TOTAL).recordValue(metrics.getTotalNanos() / 1000);
+        if (!metrics.isCacheHit()) {
+            phases.get(Phase.TIME_TO_FIRST_BYTE).recordValue(metrics.getTimeToFirstByteNanos() / 1000);
+            phases.get(Phase.PARSE).recordValue(metrics.getParseNanos() / 1000);
+        }
+
+        final AtomicLongArray counter = counters.get(endpoint);
+        counter.incrementAndGet(Counter.REQUESTS.ordinal());
+        if (!metrics.isSuccess()) {
+            counter.incrementAndGet(Counter.ERRORS.ordinal());
+        }
+        if (metrics.isCacheHit()) {
+            counter.incrementAndGet(Counter.CACHE_HITS.ordinal());
+        }
+        if (metrics.isHedged()) {
+            counter.incrementAndGet(Counter.HEDGED.ordinal());
+        }
+        counter.addAndGet(Counter.RETRIES.ordinal(), metrics.getRetryCount());
+        counter.addAndGet(Counter.COMPRESSED_BYTES.ordinal(), metrics.getCompressedBytes());
+        counter.addAndGet(Counter.UNCOMPRESSED_BYTES.ordinal(), metrics.getUncompressedBytes());
+    }
+
+    /**
+     * @return The live histogram of <code>phase</code> in microseconds
+     */
+    public LatencyHistogram getHistogram(Endpoint endpoint, Phase phase) {
+        return histograms.get(endpoint).get(phase);
+    }
+
+    public long getCount(Endpoint endpoint, Counter counter) {
+        return counters.get(endpoint).get(counter.ordinal());
+    }
+
+    public void reset() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            for (LatencyHistogram histogram : histograms.get(endpoint).values()) {
+                histogram.reset();
+            }
+            final AtomicLongArray counter = counters.get(endpoint);
+            for (int i = 0; i < counter.length(); i++) {
+                counter.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * @return A report of the endpoints which have requests, one line per histogram or counter set
+     */
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        for (Endpoint endpoint : Endpoint.values()) {
+            if (getCount(endpoint, Counter.REQUESTS) == 0) {
+                continue;
+            }
+            builder.append(endpoint);
+            for (Counter counter : Counter.values()) {
+                builder.append(' ').append(counter.name().toLowerCase()).append('=').append(getCount(endpoint, counter));
+            }
+            builder.append('\n');
+            for (Phase phase : Phase.values()) {
+                builder.append("  ").append(phase).append("(us) ").append(getHistogram(endpoint, phase)).append('\n');
+            }
+        }
+        return builder.toString();
+    }
+}
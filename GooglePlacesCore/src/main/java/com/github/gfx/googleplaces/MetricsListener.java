@@ -0,0 +1,9 @@
+package com.github.gfx.googleplaces;
+
+/**
+ * Receives metrics of every API request, e.g. {@link MetricsAggregator}.
+ * It is called in a network thread, so it must be thread-safe and return quickly.
+ */
+public interface MetricsListener {
+    void onRequestCompleted(RequestMetrics metrics);
+}
@@ -0,0 +1,174 @@
+package com.github.gfx.googleplaces;
+
+import com.google.api.client.util.Key;
+
+import java.io.Serializable;
+import java.util.List;
+
+// https://developers.google.com/places/documentation/details
+public class PlaceDetail implements Serializable, ResultBase {
+    public static final String OK = "OK";
+    public static final String UNKNOWN_ERROR = "UNKNOWN_ERROR";
+    public static final String ZERO_RESULTS = "ZERO_RESULTS";
+    public static final String OVER_QUERY_LIMIT = "OVER_QUERY_LIMIT";
+    public static final String REQUEST_DENIED = "REQUEST_DENIED";
+    public static final String INVALID_REQUEST = "INVALID_REQUEST";
+    public static final String NOT_FOUND = "NOT_FOUND";
+
+    private RequestError error; // to return an error
+
+    @Key
+    public String status;
+
+    @Key
+    public List<String> html_attributions;
+
+    @Key
+    public Result result;
+
+    @Override
+    public String getStatus() {
+        return status;
+    }
+
+    @Override
+    public RequestError getError() {
+        if (error != null) {
+            return error;
+        }
+        else if (! OK.equals(status)) {
+            return new RequestError(status, null, null);
+        }
+        else {
+            return null;
+        }
+    }
+
+    @Override
+    public void setError(RequestError error) {
+        this.error = error;
+    }
+
+    @Override
+    public boolean isSuccess() {
+        return error == null && OK.equals(status);
+    }
+
+    /**
+     * A place with the members which only the details endpoint returns.
+     */
+    public static class Result extends Place {
+        @Key
+        public List<AddressComponent> address_components;
+
+        @Key
+        public String international_phone_number;
+
+        @Key
+        public OpeningHours opening_hours;
+
+        @Key
+        public List<Photo> photos;
+
+        @Key
+        public Integer price_level;
+
+        @Key
+        public Double rating;
+
+        @Key
+        public List<Review> reviews;
+
+        @Key
+        public String url;
+
+        @Key
+        public Integer utc_offset;
+
+        @Key
+        public String website;
+    }
+
+    public static class AddressComponent implements Serializable {
+        @Key
+        public String long_name;
+
+        @Key
+        public String short_name;
+
+        @Key
+        public List<String> types;
+    }
+
+    public static class OpeningHours implements Serializable {
+        @Key
+        public Boolean open_now;
+
+        @Key
+        public List<Period> periods;
+    }
+
+    public static class Period implements Serializable {
+        @Key
+        public DayTime open;
+
+        @Key
+        public DayTime close;
+    }
+
+    public static class DayTime implements Serializable {
+        // 0 for Sunday
+        @Key
+        public int day;
+
+        // "hhmm" in 24 hours
+        @Key
+        public String time;
+    }
+
+    public static class Photo implements Serializable {
+        @Key
+        public int width;
+
+        @Key
+        public int height;
+
+        @Key
+        public String photo_reference;
+
+        @Key
+        public List<String> html_attributions;
+    }
+
+    public static class Review implements Serializable {
+        @Key
+        public List<Aspect> aspects;
+
+        @Key
+        public String author_name;
+
+        @Key
+        public String author_url;
+
+        @Key
+        public String language;
+
+        @Key
+        public Integer rating;
+
+        @Key
+        public String text;
+
+        // seconds since epoch
+        @Key
+        public long time;
+    }
+
+    public static class Aspect implements Serializable {
+        @Key
+        public String type;
+
+        @Key
+        public int rating;
+    }
+}
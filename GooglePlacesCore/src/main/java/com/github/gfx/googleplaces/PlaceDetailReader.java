@@ -0,0 +1,302 @@
+package com.github.gfx.googleplaces;
+
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a details response from the token stream, in the same way as {@link SearchResultReader}.
+ */
+class PlaceDetailReader {
+    private final JsonParser parser;
+    private final PlaceReader placeReader;
+
+    PlaceDetailReader(JsonParser parser) {
+        this.parser = parser;
+        placeReader = new PlaceReader(parser);
+    }
+
+    public PlaceDetail read() throws IOException {
+        final PlaceDetail detail = new PlaceDetail();
+
+        JsonToken token = parser.nextToken();
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("Unexpected token: " + token);
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (name) {
+                case "status":
+                    detail.status = parser.getText();
+                    break;
+                case "html_attributions":
+                    detail.html_attributions = placeReader.readStringList();
+                    break;
+                case "result":
+                    detail.result = readResult();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return detail;
+    }
+
+    private PlaceDetail.Result readResult() throws IOException {
+        final PlaceDetail.Result result = new PlaceDetail.Result();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (name) {
+                case "address_components":
+                    result.address_components = new ArrayList<>();
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        result.address_components.add(readAddressComponent());
+                    }
+                    break;
+                case "international_phone_number":
+                    result.international_phone_number = parser.getText();
+                    break;
+                case "opening_hours":
+                    result.opening_hours = readOpeningHours();
+                    break;
+                case "photos":
+                    result.photos = new ArrayList<>();
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        result.photos.add(readPhoto());
+                    }
+                    break;
+                case "price_level":
+                    result.price_level = parser.getIntValue();
+                    break;
+                case "rating":
+                    result.rating = parser.getDoubleValue();
+                    break;
+                case "reviews":
+                    result.reviews = new ArrayList<>();
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        result.reviews.add(readReview());
+                    }
+                    break;
+                case "url":
+                    result.url = parser.getText();
+                    break;
+                case "utc_offset":
+                    result.utc_offset = parser.getIntValue();
+                    break;
+                case "website":
+                    result.website = parser.getText();
+                    break;
+                default:
+                    if (!placeReader.readField(result, name)) {
+                        parser.skipChildren();
+                    }
+            }
+        }
+        return result;
+    }
+
+    private PlaceDetail.AddressComponent readAddressComponent() throws IOException {
+        final PlaceDetail.AddressComponent component = new PlaceDetail.AddressComponent();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (name) {
+                case "long_name":
+                    component.long_name = parser.getText();
+                    break;
+                case "short_name":
+                    component.short_name = parser.getText();
+                    break;
+                case "types":
+                    component.types = placeReader.readStringList();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return component;
+    }
+
+    private PlaceDetail.OpeningHours readOpeningHours() throws IOException {
+        final PlaceDetail.OpeningHours openingHours = new PlaceDetail.OpeningHours();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (name) {
+                case "open_now":
+                    openingHours.open_now = parser.getCurrentToken() == JsonToken.VALUE_TRUE;
+                    break;
+                case "periods":
+                    openingHours.periods = readPeriods();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return openingHours;
+    }
+
+    private List<PlaceDetail.Period> readPeriods() throws IOException {
+        final List<PlaceDetail.Period> periods = new ArrayList<>();
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            final PlaceDetail.Period period = new PlaceDetail.Period();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+
+                switch (name) {
+                    case "open":
+                        period.open = readDayTime();
+                        break;
+                    case "close":
+                        period.close = readDayTime();
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            periods.add(period);
+        }
+        return periods;
+    }
+
+    private PlaceDetail.DayTime readDayTime() throws IOException {
+        final PlaceDetail.DayTime dayTime = new PlaceDetail.DayTime();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (name) {
+                case "day":
+                    dayTime.day = parser.getIntValue();
+                    break;
+                case "time":
+                    dayTime.time = parser.getText();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return dayTime;
+    }
+
+    private PlaceDetail.Photo readPhoto() throws IOException {
+        final PlaceDetail.Photo photo = new PlaceDetail.Photo();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (name) {
+                case "width":
+                    photo.width = parser.getIntValue();
+                    break;
+                case "height":
+                    photo.height = parser.getIntValue();
+                    break;
+                case "photo_reference":
+                    photo.photo_reference = parser.getText();
+                    break;
+                case "html_attributions":
+                    photo.html_attributions = placeReader.readStringList();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return photo;
+    }
+
+    private PlaceDetail.Review readReview() throws IOException {
+        final PlaceDetail.Review review = new PlaceDetail.Review();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (name) {
+                case "aspects":
+                    review.aspects = new ArrayList<>();
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        review.aspects.add(readAspect());
+                    }
+                    break;
+                case "author_name":
+                    review.author_name = parser.getText();
+                    break;
+                case "author_url":
+                    review.author_url = parser.getText();
+                    break;
+                case "language":
+                    review.language = parser.getText();
+                    break;
+                case "rating":
+                    review.rating = parser.getIntValue();
+                    break;
+                case "text":
+                    review.text = parser.getText();
+                    break;
+                case "time":
+                    review.time = parser.getLongValue();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return review;
+    }
+
+    private PlaceDetail.Aspect readAspect() throws IOException {
+        final PlaceDetail.Aspect aspect = new PlaceDetail.Aspect();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (name) {
+                case "type":
+                    aspect.type = parser.getText();
+                    break;
+                case "rating":
+                    aspect.rating = parser.getIntValue();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return aspect;
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.gfx.googleplaces;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// members of Place, used to project search results to the members a screen needs
+public enum PlaceField {
+    ID("id"),
+    NAME("name"),
+    REFERENCE("reference"),
+    ICON("icon"),
+    VICINITY("vicinity"),
+    GEOMETRY("geometry"),
+    FORMATTED_ADDRESS("formatted_address"),
+    FORMATTED_PHONE_NUMBER("formatted_phone_number"),
+    TYPES("types");
+
+    private static final Map<String, PlaceField> FIELDS_BY_NAME = new HashMap<>();
+
+    static {
+        for (PlaceField field : values()) {
+            FIELDS_BY_NAME.put(field.jsonName, field);
+        }
+    }
+
+    public final String jsonName;
+
+    PlaceField(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    /**
+     * @return The field for a JSON member name, or null if Place has no such field
+     */
+    public static PlaceField forJsonName(String jsonName) {
+        return FIELDS_BY_NAME.get(jsonName);
+    }
+}
@@ -0,0 +1,305 @@
+package com.github.gfx.googleplaces;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in-memory spatial index of places received from searches, to answer nearby and bounding box queries locally.
+ * <p/>
+ * Places are bucketed into a grid of cells of <code>cellSizeInDegrees</code>, so a query visits only the cells
+ * which overlap it. The index also remembers which circles were searched completely,
+ * so that {@link #isCovered(double, double, double, long)} tells whether a nearby search can be answered locally.
+ * Bounding boxes must not cross the 180th meridian.
+ */
+public class PlaceIndex {
+    public static final double DEFAULT_CELL_SIZE = 0.01; // about 1.1km in latitude
+
+    private static final double METERS_PER_DEGREE = 111320;
+
+    private final double cellSize;
+
+    private final Map<Long, List<Entry>> cells = new HashMap<>();
+    private final Map<String, Entry> entriesById = new HashMap<>();
+    private final List<Coverage> coverages = new ArrayList<>();
+    private int size;
+
+    public PlaceIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * @param cellSizeInDegrees The size of grid cells. It should be about the radius of typical queries.
+     */
+    public PlaceIndex(double cellSizeInDegrees) {
+        cellSize = cellSizeInDegrees;
+    }
+
+    /**
+     * Adds or replaces places, identified by <code>Place.id</code>. Places without a location are ignored.
+     */
+    public synchronized void addAll(Iterable<Place> places) {
+        final long now = System.currentTimeMillis();
+        for (Place place : places) {
+            add(place, now);
+        }
+    }
+
+    public synchronized void add(Place place) {
+        add(place, System.currentTimeMillis());
+    }
+
+    private void add(Place place, long now) {
+        if (place.geometry == null || place.geometry.location == null) {
+            return;
+        }
+        if (place.id != null) {
+            final Entry previous = entriesById.remove(place.id);
+            if (previous != null) {
+                removeFromCell(previous);
+            }
+        }
+
+        final Entry entry = new Entry(place, now);
+        final long key = cellKey(entry.lat, entry.lng);
+        List<Entry> cell = cells.get(key);
+        if (cell == null) {
+            cell = new ArrayList<>();
+            cells.put(key, cell);
+        }
+        cell.add(entry);
+        size++;
+        if (place.id != null) {
+            entriesById.put(place.id, entry);
+        }
+    }
+
+    /**
+     * Remembers that a search of the circle returned all the places in it, e.g. a nearby search without a next page.
+     */
+    public synchronized void markCovered(double latitude, double longitude, double radiusInMeter) {
+        coverages.add(new Coverage(latitude, longitude, radiusInMeter, System.currentTimeMillis()));
+    }
+
+    /**
+     * @param maxAgeMillis How old a search can be to be trusted
+     * @return true if a search within <code>maxAgeMillis</code> covered the whole circle, so that the network is not needed
+     */
+    public synchronized boolean isCovered(double latitude, double longitude, double radiusInMeter, long maxAgeMillis) {
+        final long since = System.currentTimeMillis() - maxAgeMillis;
+        for (Coverage coverage : coverages) {
+            if (coverage.coveredAt >= since
+                && distance(latitude, longitude, coverage.lat, coverage.lng) + radiusInMeter <= coverage.radius) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Places within <code>radiusInMeter</code> from the point, nearest first
+     */
+    public synchronized List<Place> queryRadius(final double latitude, final double longitude, double radiusInMeter) {
+        final double latDelta = radiusInMeter / METERS_PER_DEGREE;
+        final double lngDelta = radiusInMeter / (METERS_PER_DEGREE * Math.max(Math.cos(Math.toRadians(latitude)), 1e-6));
+
+        final List<Entry> found = new ArrayList<>();
+        final long minLatCell = cellIndex(latitude - latDelta);
+        final long maxLatCell = cellIndex(latitude + latDelta);
+        final long minLngCell = cellIndex(longitude - lngDelta);
+        final long maxLngCell = cellIndex(longitude + lngDelta);
+        for (long latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (long lngCell = minLngCell; lngCell <= maxLngCell; lngCell++) {
+                final List<Entry> cell = cells.get(cellKey(latCell, lngCell));
+                if (cell == null) {
+                    continue;
+                }
+                for (Entry entry : cell) {
+                    entry.distance = distance(latitude, longitude, entry.lat, entry.lng);
+                    if (entry.distance <= radiusInMeter) {
+                        found.add(entry);
+                    }
+                }
+            }
+        }
+
+        Collections.sort(found, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b) {
+                return Double.compare(a.distance, b.distance);
+            }
+        });
+        final List<Place> places = new ArrayList<>(found.size());
+        for (Entry entry : found) {
+            places.add(entry.place);
+        }
+        return places;
+    }
+
+    /**
+     * @return Places in the bounding box, in no particular order
+     */
+    public synchronized List<Place> queryBox(double south, double west, double north, double east) {
+        final List<Place> places = new ArrayList<>();
+        for (long latCell = cellIndex(south); latCell <= cellIndex(north); latCell++) {
+            for (long lngCell = cellIndex(west); lngCell <= cellIndex(east); lngCell++) {
+                final List<Entry> cell = cells.get(cellKey(latCell, lngCell));
+                if (cell == null) {
+                    continue;
+                }
+                for (Entry entry : cell) {
+                    if (entry.isInside(south, west, north, east)) {
+                        places.add(entry.place);
+                    }
+                }
+            }
+        }
+        return places;
+    }
+
+    /**
+     * Removes places and coverages older than <code>maxAgeMillis</code>.
+     */
+    public synchronized void evictOlderThan(long maxAgeMillis) {
+        final long since = System.currentTimeMillis() - maxAgeMillis;
+
+        final Iterator<List<Entry>> cellIterator = cells.values().iterator();
+        while (cellIterator.hasNext()) {
+            final List<Entry> cell = cellIterator.next();
+            final Iterator<Entry> iterator = cell.iterator();
+            while (iterator.hasNext()) {
+                final Entry entry = iterator.next();
+                if (entry.indexedAt < since) {
+                    iterator.remove();
+                    size--;
+                    removeFromIds(entry);
+                }
+            }
+            if (cell.isEmpty()) {
+                cellIterator.remove();
+            }
+        }
+
+        final Iterator<Coverage> coverageIterator = coverages.iterator();
+        while (coverageIterator.hasNext()) {
+            if (coverageIterator.next().coveredAt < since) {
+                coverageIterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes places and coverages outside the bounding box, e.g. far from the area the map shows.
+     */
+    public synchronized void evictOutside(double south, double west, double north, double east) {
+        final Iterator<List<Entry>> cellIterator = cells.values().iterator();
+        while (cellIterator.hasNext()) {
+            final List<Entry> cell = cellIterator.next();
+            final Iterator<Entry> iterator = cell.iterator();
+            while (iterator.hasNext()) {
+                final Entry entry = iterator.next();
+                if (!entry.isInside(south, west, north, east)) {
+                    iterator.remove();
+                    size--;
+                    removeFromIds(entry);
+                }
+            }
+            if (cell.isEmpty()) {
+                cellIterator.remove();
+            }
+        }
+
+        final Iterator<Coverage> coverageIterator = coverages.iterator();
+        while (coverageIterator.hasNext()) {
+            final Coverage coverage = coverageIterator.next();
+            if (coverage.lat < south || coverage.lat > north || coverage.lng < west || coverage.lng > east) {
+                coverageIterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        cells.clear();
+        entriesById.clear();
+        coverages.clear();
+        size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void removeFromCell(Entry entry) {
+        final long key = cellKey(entry.lat, entry.lng);
+        final List<Entry> cell = cells.get(key);
+        if (cell != null && cell.remove(entry)) {
+            size--;
+            if (cell.isEmpty()) {
+                cells.remove(key);
+            }
+        }
+    }
+
+    private void removeFromIds(Entry entry) {
+        if (entry.place.id != null && entriesById.get(entry.place.id) == entry) {
+            entriesById.remove(entry.place.id);
+        }
+    }
+
+    private long cellIndex(double degrees) {
+        return (long) Math.floor(degrees / cellSize);
+    }
+
+    private long cellKey(double lat, double lng) {
+        return cellKey(cellIndex(lat), cellIndex(lng));
+    }
+
+    private static long cellKey(long latCell, long lngCell) {
+        return (latCell << 32) | (lngCell & 0xffffffffL);
+    }
+
+    // equirectangular approximation, accurate enough within a few kilometers
+    static double distance(double lat1, double lng1, double lat2, double lng2) {
+        final double x = Math.toRadians(lng2 - lng1) * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        final double y = Math.toRadians(lat2 - lat1);
+        return Math.sqrt(x * x + y * y) * 6371000;
+    }
+
+    private static class Entry {
+        final Place place;
+        final double lat;
+        final double lng;
+        final long indexedAt;
+
+        double distance; // a scratch for queryRadius()
+
+        Entry(Place place, long indexedAt) {
+            this.place = place;
+            lat = place.geometry.location.lat;
+            lng = place.geometry.location.lng;
+            this.indexedAt = indexedAt;
+        }
+
+        boolean isInside(double south, double west, double north, double east) {
+            return south <= lat && lat <= north && west <= lng && lng <= east;
+        }
+    }
+
+    private static class Coverage {
+        final double lat;
+        final double lng;
+        final double radius;
+        final long coveredAt;
+
+        Coverage(double lat, double lng, double radius, long coveredAt) {
+            this.lat = lat;
+            this.lng = lng;
+            this.radius = radius;
+            this.coveredAt = coveredAt;
+        }
+    }
+}
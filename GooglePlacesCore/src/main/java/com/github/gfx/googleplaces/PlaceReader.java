@@ -0,0 +1,149 @@
+package com.github.gfx.googleplaces;
+
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decodes {@link Place} and its members by direct field assignment.
+ * It replaces the reflective <code>@Key</code> binding of google-http-client on the hot path.
+ */
+class PlaceReader {
+    private final JsonParser parser;
+    private final Set<PlaceField> fields;
+
+    PlaceReader(JsonParser parser) {
+        this(parser, null);
+    }
+
+    /**
+     * @param fields Fields to read, or null to read all. The others are skipped and left null.
+     */
+    PlaceReader(JsonParser parser, Set<PlaceField> fields) {
+        this.parser = parser;
+        this.fields = fields;
+    }
+
+    /**
+     * Reads a place object. The current token must be START_OBJECT.
+     */
+    public Place readPlace() throws IOException {
+        final Place place = new Place();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            if (!readField(place, name)) {
+                parser.skipChildren();
+            }
+        }
+        return place;
+    }
+
+    /**
+     * Reads the value of a field of {@link Place}. The current token must be the value.
+     *
+     * @return false if <code>name</code> is not a field of Place, leaving the value unread
+     */
+    public boolean readField(Place place, String name) throws IOException {
+        final PlaceField field = PlaceField.forJsonName(name);
+        if (field == null || (fields != null && !fields.contains(field))) {
+            return false;
+        }
+
+        switch (field) {
+            case ID:
+                place.id = parser.getText();
+                break;
+            case NAME:
+                place.name = parser.getText();
+                break;
+            case REFERENCE:
+                place.reference = parser.getText();
+                break;
+            case ICON:
+                place.icon = parser.getText();
+                break;
+            case VICINITY:
+                place.vicinity = parser.getText();
+                break;
+            case GEOMETRY:
+                place.geometry = readGeometry();
+                break;
+            case FORMATTED_ADDRESS:
+                place.formatted_address = parser.getText();
+                break;
+            case FORMATTED_PHONE_NUMBER:
+                place.formatted_phone_number = parser.getText();
+                break;
+            case TYPES:
+                place.types = readStringList();
+                break;
+        }
+        return true;
+    }
+
+    public Place.Geometry readGeometry() throws IOException {
+        final Place.Geometry geometry = new Place.Geometry();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            if (name.equals("location")) {
+                geometry.location = readLocation();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return geometry;
+    }
+
+    public Place.Location readLocation() throws IOException {
+        final Place.Location location = new Place.Location();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (name) {
+                case "lat":
+                    location.lat = parser.getDoubleValue();
+                    break;
+                case "lng":
+                    location.lng = parser.getDoubleValue();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return location;
+    }
+
+    /**
+     * Reads an array of strings. The current token must be START_ARRAY.
+     */
+    public List<String> readStringList() throws IOException {
+        final List<String> list = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.VALUE_NULL) {
+                list.add(null);
+            } else {
+                list.add(parser.getText());
+            }
+        }
+        return list;
+    }
+}
@@ -0,0 +1,372 @@
+package com.github.gfx.googleplaces;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The result of a request which completes later, to be composed without nested callbacks:
+ * transformed, chained to other requests, combined with {@link #allOf(List)} or bounded by {@link #withTimeout(long, TimeUnit)}.
+ * It is a lightweight ListenableFuture, because CompletableFuture is not available on Android.
+ * <p/>
+ * Listeners and functions run in the callback executor of the dispatcher, or in the calling thread if the future is already done.
+ * Blocking {@link #get()} is for background threads, e.g. virtual threads of a backend;
+ * in the callback executor, e.g. the main thread on Android, it would wait forever.
+ * <p/>
+ * A failed future throws an ExecutionException whose cause is the {@link RequestError}.
+ * Cancelling a future cancels its request and the futures derived from it, and its listeners are not called.
+ */
+public class PlacesFuture<T> implements Future<T>, Call {
+    public interface Function<A, B> {
+        B apply(A input) throws Exception;
+    }
+
+    public interface AsyncFunction<A, B> {
+        PlacesFuture<B> apply(A input) throws Exception;
+    }
+
+    private final Dispatcher dispatcher;
+
+    // guarded by this
+    private Call call;
+    private List<Runnable> listeners = new ArrayList<>(2);
+    private List<PlacesFuture<?>> dependents = new ArrayList<>(1);
+    private boolean done;
+    private boolean canceled;
+    private T result;
+    private RequestError error;
+
+    /**
+     * @param dispatcher A dispatcher for timeouts, or null
+     */
+    PlacesFuture(Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Sets the request which completes this future, to be cancelled with it.
+     */
+    void setCall(Call call) {
+        synchronized (this) {
+            if (!canceled) {
+                this.call = call;
+                return;
+            }
+        }
+        call.cancel();
+    }
+
+    boolean complete(T value) {
+        return finish(value, null);
+    }
+
+    boolean fail(RequestError requestError) {
+        return finish(null, requestError);
+    }
+
+    private boolean finish(T value, RequestError requestError) {
+        final List<Runnable> pending;
+        synchronized (this) {
+            if (done) {
+                return false;
+            }
+            done = true;
+            result = value;
+            error = requestError;
+            pending = listeners;
+            listeners = null;
+            dependents = null;
+            notifyAll();
+        }
+        for (Runnable listener : pending) {
+            listener.run();
+        }
+        return true;
+    }
+
+    /**
+     * Cancels the request and the futures derived from this future. Its listeners are not called.
+     *
+     * @return false if it is already done
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        final Call currentCall;
+        final List<PlacesFuture<?>> currentDependents;
+        synchronized (this) {
+            if (done) {
+                return false;
+            }
+            done = true;
+            canceled = true;
+            currentCall = call;
+            currentDependents = dependents;
+            listeners = null;
+            dependents = null;
+            notifyAll();
+        }
+        if (currentCall != null) {
+            currentCall.cancel();
+        }
+        for (PlacesFuture<?> dependent : currentDependents) {
+            dependent.cancel(mayInterruptIfRunning);
+        }
+        return true;
+    }
+
+    @Override
+    public void cancel() {
+        cancel(true);
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return canceled;
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return isCancelled();
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public synchronized T get() throws InterruptedException, ExecutionException {
+        while (!done) {
+            wait();
+        }
+        return getResult();
+    }
+
+    @Override
+    public synchronized T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!done) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return getResult();
+    }
+
+    // must be called after done, with the lock
+    private T getResult() throws ExecutionException {
+        if (canceled) {
+            throw new CancellationException();
+        }
+        if (error != null) {
+            throw new ExecutionException(error);
+        }
+        return result;
+    }
+
+    /**
+     * Adds listeners, either of which is called once when this future completes.
+     */
+    public PlacesFuture<T> addListener(final GooglePlacesBase.ResultListener<? super T> resultListener,
+                                       final GooglePlacesBase.ErrorListener errorListener) {
+        final Runnable listener = new Runnable() {
+            @Override
+            public void run() {
+                if (error == null) {
+                    resultListener.onComplete(result);
+                } else {
+                    errorListener.onError(error);
+                }
+            }
+        };
+        synchronized (this) {
+            if (canceled) {
+                return this;
+            }
+            if (!done) {
+                listeners.add(listener);
+                return this;
+            }
+        }
+        listener.run();
+        return this;
+    }
+
+    /**
+     * @return A future of the result converted by <code>function</code>. An exception thrown by it fails the future.
+     */
+    public <R> PlacesFuture<R> transform(final Function<? super T, ? extends R> function) {
+        final PlacesFuture<R> future = derive();
+        addListener(new GooglePlacesBase.ResultListener<T>() {
+            @Override
+            public void onComplete(T value) {
+                final R converted;
+                try {
+                    converted = function.apply(value);
+                } catch (Exception e) {
+                    future.fail(new RequestError("Failed to transform a result", e, null));
+                    return;
+                }
+                future.complete(converted);
+            }
+        }, future.createFailingListener());
+        return future;
+    }
+
+    /**
+     * Chains another request, e.g. details of the places found by a search.
+     *
+     * @return A future of the future returned by <code>function</code>
+     */
+    public <R> PlacesFuture<R> transformAsync(final AsyncFunction<? super T, R> function) {
+        final PlacesFuture<R> future = derive();
+        addListener(new GooglePlacesBase.ResultListener<T>() {
+            @Override
+            public void onComplete(T value) {
+                final PlacesFuture<R> next;
+                try {
+                    next = function.apply(value);
+                } catch (Exception e) {
+                    future.fail(new RequestError("Failed to chain a request", e, null));
+                    return;
+                }
+                future.setCall(next);
+                next.addListener(future.createCompletingListener(), future.createFailingListener());
+            }
+        }, future.createFailingListener());
+        return future;
+    }
+
+    /**
+     * Fails this future with a TimeoutException cause and cancels its request, if it is not done in time.
+     * The timeout is delivered by the timer of the dispatcher to the callback executor,
+     * so it fires even when all the network threads are stuck in slow requests.
+     *
+     * @return This future
+     */
+    public PlacesFuture<T> withTimeout(final long timeout, final TimeUnit unit) {
+        if (isDone()) {
+            return this;
+        }
+        dispatcher.deliverLater(new Runnable() {
+            @Override
+            public void run() {
+                final Call currentCall;
+                synchronized (PlacesFuture.this) {
+                    currentCall = call;
+                }
+                if (fail(new RequestError("Timed out after " + unit.toMillis(timeout) + "ms", new TimeoutException(), null))
+                    && currentCall != null) {
+                    currentCall.cancel();
+                }
+            }
+        }, unit.toMillis(timeout));
+        return this;
+    }
+
+    /**
+     * @return A future of all the results in the same order, which fails as soon as any of them fails, cancelling the others
+     */
+    public static <T> PlacesFuture<List<T>> allOf(final List<? extends PlacesFuture<? extends T>> futures) {
+        if (futures.isEmpty()) {
+            final PlacesFuture<List<T>> future = new PlacesFuture<>(null);
+            future.complete(Collections.<T>emptyList());
+            return future;
+        }
+
+        final PlacesFuture<?> first = futures.get(0);
+        final PlacesFuture<List<T>> future = new PlacesFuture<>(first.dispatcher);
+
+        final AtomicReferenceArray<T> results = new AtomicReferenceArray<>(futures.size());
+        final AtomicInteger remaining = new AtomicInteger(futures.size());
+        future.setCall(new Call() {
+            @Override
+            public void cancel() {
+                for (PlacesFuture<? extends T> input : futures) {
+                    input.cancel();
+                }
+            }
+
+            @Override
+            public boolean isCanceled() {
+                return future.isCancelled();
+            }
+        });
+
+        for (int i = 0; i < futures.size(); i++) {
+            final int index = i;
+            final PlacesFuture<? extends T> input = futures.get(i);
+            input.addDependent(future);
+            input.addListener(new GooglePlacesBase.ResultListener<T>() {
+                @Override
+                public void onComplete(T value) {
+                    results.set(index, value);
+                    if (remaining.decrementAndGet() == 0) {
+                        final List<T> values = new ArrayList<>(results.length());
+                        for (int j = 0; j < results.length(); j++) {
+                            values.add(results.get(j));
+                        }
+                        future.complete(values);
+                    }
+                }
+            }, new GooglePlacesBase.ErrorListener() {
+                @Override
+                public void onError(RequestError error) {
+                    if (future.fail(error)) {
+                        for (PlacesFuture<? extends T> other : futures) {
+                            other.cancel();
+                        }
+                    }
+                }
+            });
+        }
+        return future;
+    }
+
+    // creates a future which is cancelled with this one, and whose cancellation cancels this one
+    private <R> PlacesFuture<R> derive() {
+        final PlacesFuture<R> future = new PlacesFuture<>(dispatcher);
+        future.setCall(this);
+        addDependent(future);
+        return future;
+    }
+
+    private void addDependent(PlacesFuture<?> dependent) {
+        synchronized (this) {
+            if (!canceled) {
+                if (!done) {
+                    dependents.add(dependent);
+                }
+                return;
+            }
+        }
+        dependent.cancel();
+    }
+
+    private GooglePlacesBase.ResultListener<T> createCompletingListener() {
+        return new GooglePlacesBase.ResultListener<T>() {
+            @Override
+            public void onComplete(T value) {
+                complete(value);
+            }
+        };
+    }
+
+    private GooglePlacesBase.ErrorListener createFailingListener() {
+        return new GooglePlacesBase.ErrorListener() {
+            @Override
+            public void onError(RequestError error) {
+                fail(error);
+            }
+        };
+    }
+}
@@ -0,0 +1,237 @@
+package com.github.gfx.googleplaces;
+
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter for API requests, with a bucket per {@link Endpoint} and a daily quota shared by all of them.
+ * <p/>
+ * A request which must wait for a token is rescheduled for up to <code>maxWaitMillis</code> without holding a network thread,
+ * and a request which would wait longer, or exceed the daily quota, fails early without being sent.
+ * When Google answers OVER_QUERY_LIMIT, the rate of the endpoint is halved, and it recovers
+ * additively with each successful response (AIMD).
+ */
+public class RateLimiter {
+    public static final double DEFAULT_RATE = 10; // requests per second
+    public static final long DEFAULT_MAX_WAIT = 5 * 1000;
+
+    // the rate never goes below DEFAULT_RATE / MAX_BACKOFF
+    private static final double MAX_BACKOFF = 64;
+
+    // successful responses to recover the full rate from zero
+    private static final double RECOVERY_STEPS = 20;
+
+    private final Map<Endpoint, Bucket> buckets = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Integer> costs = new EnumMap<>(Endpoint.class);
+
+    private long maxWaitMillis = DEFAULT_MAX_WAIT;
+
+    private long dailyQuota; // 0 for unlimited
+    private TimeZone quotaTimeZone = TimeZone.getTimeZone("America/Los_Angeles"); // Google resets quotas at midnight PT
+    private long quotaDay;
+    private long dailyUsage;
+
+    private final Map<Endpoint, long[]> counters = new EnumMap<>(Endpoint.class);
+    private static final int PERMITTED = 0;
+    private static final int DELAYED = 1;
+    private static final int REJECTED = 2;
+    private static final int OVER_QUERY_LIMIT = 3;
+
+    public RateLimiter() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            buckets.put(endpoint, new Bucket(DEFAULT_RATE, DEFAULT_RATE));
+            costs.put(endpoint, 1);
+            counters.put(endpoint, new long[4]);
+        }
+        // as documented in Usage Limits of Google Places API
+        costs.put(Endpoint.TEXT_SEARCH, 10);
+        costs.put(Endpoint.RADAR_SEARCH, 5);
+    }
+
+    /**
+     * @param permitsPerSecond The sustained rate of requests
+     * @param burst            The number of requests which can be sent at once after idling
+     */
+    public synchronized RateLimiter setRate(Endpoint endpoint, double permitsPerSecond, double burst) {
+        buckets.put(endpoint, new Bucket(permitsPerSecond, burst));
+        return this;
+    }
+
+    /**
+     * @return The current rate, which may be lower than the configured one after OVER_QUERY_LIMIT
+     */
+    public synchronized double getRate(Endpoint endpoint) {
+        return buckets.get(endpoint).rate;
+    }
+
+    /**
+     * @param maxWaitMillis How long a request can wait for a token before it fails
+     */
+    public synchronized RateLimiter setMaxWait(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+        return this;
+    }
+
+    /**
+     * @param dailyQuota The number of requests per day, or 0 for unlimited. Each request counts as its cost.
+     */
+    public synchronized RateLimiter setDailyQuota(long dailyQuota) {
+        this.dailyQuota = dailyQuota;
+        return this;
+    }
+
+    public synchronized RateLimiter setQuotaTimeZone(TimeZone timeZone) {
+        quotaTimeZone = timeZone;
+        return this;
+    }
+
+    /**
+     * @param cost How many requests of the daily quota a request to <code>endpoint</code> uses
+     */
+    public synchronized RateLimiter setCost(Endpoint endpoint, int cost) {
+        costs.put(endpoint, cost);
+        return this;
+    }
+
+    /**
+     * Reserves a token of <code>endpoint</code>. The request must be sent after the returned wait,
+     * for which the caller reschedules it rather than blocking its thread.
+     *
+     * @return Milliseconds to wait for the token
+     * @throws RejectedException If it would wait longer than the max wait, or the daily quota is used up
+     */
+    long acquire(Endpoint endpoint) throws RejectedException {
+        final long waitNanos = reserve(endpoint, System.nanoTime(), System.currentTimeMillis());
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos + TimeUnit.MILLISECONDS.toNanos(1) - 1); // never earlier than the token
+    }
+
+    // returns nanoseconds to wait for the reserved token
+    synchronized long reserve(Endpoint endpoint, long nanoTime, long currentTimeMillis) throws RejectedException {
+        final long[] counter = counters.get(endpoint);
+
+        final int cost = costs.get(endpoint);
+        if (dailyQuota > 0) {
+            final long today = dayOf(currentTimeMillis);
+            if (today != quotaDay) {
+                quotaDay = today;
+                dailyUsage = 0;
+            }
+            if (dailyUsage + cost > dailyQuota) {
+                counter[REJECTED]++;
+                throw new RejectedException("Daily quota of " + dailyQuota + " requests is used up");
+            }
+        }
+
+        final Bucket bucket = buckets.get(endpoint);
+        bucket.refill(nanoTime);
+        final long waitNanos = bucket.tokens >= 1 ? 0 : (long) ((1 - bucket.tokens) / bucket.rate * 1e9);
+        if (waitNanos > maxWaitMillis * 1000000) {
+            counter[REJECTED]++;
+            throw new RejectedException("Rate limit of " + endpoint + " exceeded");
+        }
+
+        bucket.tokens -= 1; // may go negative, which queues the request behind earlier reservations
+        dailyUsage += cost;
+        counter[waitNanos > 0 ? DELAYED : PERMITTED]++;
+        return waitNanos;
+    }
+
+    /**
+     * Adapts the rate of <code>endpoint</code> to the status of a response.
+     */
+    synchronized void onResponse(Endpoint endpoint, String status) {
+        final Bucket bucket = buckets.get(endpoint);
+        if (SearchResult.OVER_QUERY_LIMIT.equals(status)) {
+            counters.get(endpoint)[OVER_QUERY_LIMIT]++;
+            bucket.rate = Math.max(bucket.rate / 2, bucket.maxRate / MAX_BACKOFF);
+            bucket.tokens = Math.min(bucket.tokens, 0); // pause until the bucket refills at the new rate
+        } else if (bucket.rate < bucket.maxRate) {
+            bucket.rate = Math.min(bucket.rate + bucket.maxRate / RECOVERY_STEPS, bucket.maxRate);
+        }
+    }
+
+    private long dayOf(long currentTimeMillis) {
+        return (currentTimeMillis + quotaTimeZone.getOffset(currentTimeMillis)) / (24 * 60 * 60 * 1000);
+    }
+
+    /**
+     * @return Requests sent without waiting
+     */
+    public synchronized long getPermittedCount(Endpoint endpoint) {
+        return counters.get(endpoint)[PERMITTED];
+    }
+
+    /**
+     * @return Requests sent after waiting for a token
+     */
+    public synchronized long getDelayedCount(Endpoint endpoint) {
+        return counters.get(endpoint)[DELAYED];
+    }
+
+    /**
+     * @return Requests failed without being sent
+     */
+    public synchronized long getRejectedCount(Endpoint endpoint) {
+        return counters.get(endpoint)[REJECTED];
+    }
+
+    /**
+     * @return Responses with OVER_QUERY_LIMIT
+     */
+    public synchronized long getOverQueryLimitCount(Endpoint endpoint) {
+        return counters.get(endpoint)[OVER_QUERY_LIMIT];
+    }
+
+    /**
+     * @return Requests counted against the daily quota today, weighted by their costs
+     */
+    public synchronized long getDailyUsage() {
+        return dayOf(System.currentTimeMillis()) == quotaDay ? dailyUsage : 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        final StringBuilder builder = new StringBuilder("RateLimiter[");
+        for (Endpoint endpoint : Endpoint.values()) {
+            final long[] counter = counters.get(endpoint);
+            builder.append(String.format("%s: rate=%.2f, permitted=%d, delayed=%d, rejected=%d, overQueryLimit=%d, ",
+                endpoint, buckets.get(endpoint).rate,
+                counter[PERMITTED], counter[DELAYED], counter[REJECTED], counter[OVER_QUERY_LIMIT]));
+        }
+        return builder.append("dailyUsage=").append(dailyUsage).append('/').append(dailyQuota).append(']').toString();
+    }
+
+    private static class Bucket {
+        final double maxRate;
+        final double burst;
+
+        double rate;
+        double tokens;
+        long refilledAt = System.nanoTime();
+
+        Bucket(double rate, double burst) {
+            maxRate = rate;
+            this.rate = rate;
+            this.burst = burst;
+            tokens = burst;
+        }
+
+        void refill(long now) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) / 1e9 * rate);
+            refilledAt = now;
+        }
+    }
+
+    /**
+     * Thrown when a request fails early instead of being sent.
+     */
+    public static class RejectedException extends IOException {
+        RejectedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package com.github.gfx.googleplaces;
 
-import android.util.Log;
-
 import com.google.api.client.http.GenericUrl;
 import com.google.api.client.http.HttpRequest;
 import com.google.api.client.http.HttpResponse;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
 public class RequestError extends Exception {
     private final String reason;
     private final Throwable parent;
@@ -28,7 +29,9 @@ public class RequestError extends Exception {
             message += "¥n" + request.getRequestMethod() + " " + request.getUrl();
         }
         if (parent != null) {
-            message += ": " + Log.getStackTraceString(parent);
+            final StringWriter stackTrace = new StringWriter();
+            parent.printStackTrace(new PrintWriter(stackTrace));
+            message += ": " + stackTrace;
         }
         return String.format("RequestError: %s\n%s", reason, message);
     }
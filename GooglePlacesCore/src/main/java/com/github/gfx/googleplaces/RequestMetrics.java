@@ -0,0 +1,157 @@
+package com.github.gfx.googleplaces;
+
+/**
+ * Timings and sizes of an API request, given to {@link MetricsListener}.
+ * <p/>
+ * Durations are in nanoseconds. Network phases are of the last attempt, and are 0 for a cache hit
+ * or for an attempt which failed before that phase.
+ * DNS lookup, connecting and the TLS handshake are not reported separately, because the transports of google-http-client
+ * do not expose them; they are part of the time to first byte.
+ */
+public class RequestMetrics {
+    private final Endpoint endpoint;
+    private final long enqueuedAt;
+
+    private long startedAt;
+    private long completedAt;
+
+    long timeToFirstByteNanos;
+    long parseNanos;
+    long compressedBytes;
+    long uncompressedBytes;
+    int attempts;
+    boolean cacheHit;
+    boolean hedged;
+
+    private String status;
+    private RequestError error;
+
+    /**
+     * Starts measuring a request, when it is submitted to the dispatcher.
+     */
+    RequestMetrics(Endpoint endpoint) {
+        this(endpoint, System.nanoTime());
+    }
+
+    RequestMetrics(Endpoint endpoint, long enqueuedAt) {
+        this.endpoint = endpoint;
+        this.enqueuedAt = enqueuedAt;
+    }
+
+    void start() {
+        startedAt = System.nanoTime();
+    }
+
+    // clears the network phases of a previous attempt
+    void resetNetworkPhases() {
+        timeToFirstByteNanos = 0;
+        parseNanos = 0;
+        compressedBytes = 0;
+        uncompressedBytes = 0;
+    }
+
+    // takes the network phases of a hedged request which answered instead
+    void setNetworkPhasesOf(RequestMetrics other) {
+        timeToFirstByteNanos = other.timeToFirstByteNanos;
+        parseNanos = other.parseNanos;
+        compressedBytes = other.compressedBytes;
+        uncompressedBytes = other.uncompressedBytes;
+    }
+
+    void complete(ResultBase result) {
+        completedAt = System.nanoTime();
+        status = result.getStatus();
+        error = result.getError();
+    }
+
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return Time waiting for a network thread
+     */
+    public long getQueueNanos() {
+        return Math.max(startedAt - enqueuedAt, 0);
+    }
+
+    /**
+     * @return Time from sending the request to receiving the response headers,
+     * including DNS lookup, connecting and the TLS handshake for a new connection
+     */
+    public long getTimeToFirstByteNanos() {
+        return timeToFirstByteNanos;
+    }
+
+    /**
+     * @return Time to download and parse the response, which overlap each other
+     */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * @return Time from starting the request to completing it, including retries and waiting for the rate limiter
+     */
+    public long getTotalNanos() {
+        return completedAt - startedAt;
+    }
+
+    /**
+     * @return <code>Content-Length</code> of the response, or its decompressed size without it
+     */
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    public long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    /**
+     * @return The number of attempts, or 0 for a cache hit
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public int getRetryCount() {
+        return Math.max(attempts - 1, 0);
+    }
+
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    /**
+     * @return true if a hedged request answered instead of the first one
+     */
+    public boolean isHedged() {
+        return hedged;
+    }
+
+    /**
+     * @return The status of the response, or null if there was no response
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * @return The error, or null on success
+     */
+    public RequestError getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RequestMetrics[%s status=%s queue=%dus ttfb=%dus parse=%dus total=%dus bytes=%d/%d attempts=%d%s%s]",
+            endpoint, status, getQueueNanos() / 1000, timeToFirstByteNanos / 1000, parseNanos / 1000, getTotalNanos() / 1000,
+            compressedBytes, uncompressedBytes, attempts, cacheHit ? " cacheHit" : "", hedged ? " hedged" : "");
+    }
+}
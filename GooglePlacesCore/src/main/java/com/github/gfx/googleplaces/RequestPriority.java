@@ -0,0 +1,7 @@
+package com.github.gfx.googleplaces;
+
+public enum RequestPriority {
+    HIGH,
+    NORMAL,
+    LOW,
+}
@@ -0,0 +1,125 @@
+package com.github.gfx.googleplaces;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.util.ByteStreams;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Loads static resources such as place icons through a {@link DiskCache}.
+ * <p/>
+ * Fresh entries are served from disk. Stale entries are revalidated with <code>If-None-Match</code>,
+ * and their lifetime follows <code>Cache-Control</code> of the response.
+ * <p/>
+ * Only icons are loaded through it for now, because this library has no request for the Place Photos API.
+ * A photo URL would work the same way once there is one.
+ */
+public class ResourceLoader {
+    /**
+     * Lifetime of responses without <code>max-age</code>. Place icons rarely change.
+     */
+    public static final long DEFAULT_TTL = 24 * 60 * 60 * 1000;
+
+    private static final int STATUS_CODE_NOT_MODIFIED = 304;
+
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+
+    private final HttpRequestFactory requestFactory;
+    private final DiskCache diskCache;
+
+    /**
+     * @param diskCache A disk cache, or null to always go to the network
+     */
+    public ResourceLoader(HttpRequestFactory requestFactory, DiskCache diskCache) {
+        this.requestFactory = requestFactory;
+        this.diskCache = diskCache;
+    }
+
+    public DiskCache getDiskCache() {
+        return diskCache;
+    }
+
+    /**
+     * Loads <code>url</code> in the current thread.
+     *
+     * @return The content, or null if the server returns an error and there is no cached content
+     */
+    public byte[] load(String url) throws IOException {
+        return load(url, new CancellableCall());
+    }
+
+    byte[] load(String url, CancellableCall call) throws IOException {
+        final DiskCache.Entry cached = diskCache != null ? diskCache.get(url) : null;
+        if (cached != null && !cached.isExpired(System.currentTimeMillis())) {
+            return cached.data;
+        }
+
+        final HttpRequest request = requestFactory.buildGetRequest(new GenericUrl(url));
+        request.setThrowExceptionOnExecuteError(false);
+        if (cached != null && cached.etag != null) {
+            request.getHeaders().setIfNoneMatch(cached.etag);
+        }
+
+        final HttpResponse response = request.execute();
+        call.attach(response);
+        try {
+            final long now = System.currentTimeMillis();
+            final String cacheControl = response.getHeaders().getCacheControl();
+
+            if (response.getStatusCode() == STATUS_CODE_NOT_MODIFIED && cached != null) {
+                store(url, new DiskCache.Entry(cached.data, expiresAt(cacheControl, now), cached.etag), cacheControl);
+                return cached.data;
+            }
+            if (!response.isSuccessStatusCode()) {
+                return cached != null ? cached.data : null; // stale content is better than nothing
+            }
+
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            final InputStream content = response.getContent();
+            if (content != null) {
+                ByteStreams.copy(content, buffer); // unlike download(), leaves closing to ignore() below
+            }
+            final byte[] data = buffer.toByteArray();
+            store(url, new DiskCache.Entry(data, expiresAt(cacheControl, now), response.getHeaders().getETag()), cacheControl);
+            return data;
+        } finally {
+            call.clearAbortAction();
+            try {
+                response.ignore(); // closes the content but keeps the connection alive for the next icon
+            } catch (IOException e) {
+                // not to hide an exception of the transfer
+            }
+        }
+    }
+
+    private void store(String url, DiskCache.Entry entry, String cacheControl) {
+        if (diskCache == null || (cacheControl != null && cacheControl.contains("no-store"))) {
+            return;
+        }
+        try {
+            diskCache.put(url, entry);
+        } catch (IOException e) {
+            // it will be downloaded again next time
+        }
+    }
+
+    static long expiresAt(String cacheControl, long now) {
+        if (cacheControl != null) {
+            if (cacheControl.contains("no-cache")) {
+                return now; // must be revalidated on every use
+            }
+            final Matcher matcher = MAX_AGE.matcher(cacheControl);
+            if (matcher.find()) {
+                return now + Long.parseLong(matcher.group(1)) * 1000;
+            }
+        }
+        return now + DEFAULT_TTL;
+    }
+}
@@ -0,0 +1,212 @@
+package com.github.gfx.googleplaces;
+
+import com.google.api.client.http.GenericUrl;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Caches successful response bodies of the Places API, keyed by the canonical request URL without the API key.
+ * <p/>
+ * Entries live in a size-bounded LRU memory tier and, optionally, in a {@link DiskCache}.
+ * Each {@link Endpoint} has its own time to live.
+ */
+public class ResponseCache {
+    public static final long DEFAULT_SEARCH_TTL = 5 * 60 * 1000;
+    public static final long DEFAULT_DETAILS_TTL = 30 * 60 * 1000;
+
+    private final long maxBytes;
+    private final DiskCache diskCache;
+
+    private final LinkedHashMap<String, DiskCache.Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Endpoint, Long> ttls = new EnumMap<>(Endpoint.class);
+
+    private long size;
+
+    private long hitCount;
+    private long diskHitCount;
+    private long missCount;
+    private long putCount;
+    private long evictionCount;
+
+    public ResponseCache(long maxBytes) {
+        this(maxBytes, null);
+    }
+
+    /**
+     * @param diskCache A disk tier consulted on memory misses, or null
+     */
+    public ResponseCache(long maxBytes, DiskCache diskCache) {
+        this.maxBytes = maxBytes;
+        this.diskCache = diskCache;
+
+        ttls.put(Endpoint.NEARBY_SEARCH, DEFAULT_SEARCH_TTL);
+        ttls.put(Endpoint.TEXT_SEARCH, DEFAULT_SEARCH_TTL);
+        ttls.put(Endpoint.RADAR_SEARCH, DEFAULT_SEARCH_TTL);
+        ttls.put(Endpoint.DETAILS, DEFAULT_DETAILS_TTL);
+    }
+
+    /**
+     * @param ttlMillis Time to live of responses from <code>endpoint</code>, or 0 not to cache them
+     */
+    public synchronized ResponseCache setTtl(Endpoint endpoint, long ttlMillis) {
+        ttls.put(endpoint, ttlMillis);
+        return this;
+    }
+
+    public synchronized long getTtl(Endpoint endpoint) {
+        return ttls.get(endpoint);
+    }
+
+    /**
+     * @return A cached response body, or null if not cached or expired
+     */
+    public byte[] get(String key) {
+        final long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            final DiskCache.Entry entry = entries.get(key);
+            if (entry != null) {
+                if (!entry.isExpired(now)) {
+                    hitCount++;
+                    return entry.data;
+                }
+                remove(key);
+            }
+        }
+
+        if (diskCache != null) {
+            final DiskCache.Entry entry = diskCache.get(key);
+            if (entry != null) {
+                if (!entry.isExpired(now)) {
+                    synchronized (this) {
+                        diskHitCount++;
+                        putInMemory(key, entry);
+                    }
+                    return entry.data;
+                }
+                diskCache.remove(key);
+            }
+        }
+
+        synchronized (this) {
+            missCount++;
+        }
+        return null;
+    }
+
+    public void put(String key, Endpoint endpoint, byte[] data) {
+        final long ttl = getTtl(endpoint);
+        if (ttl <= 0) {
+            return;
+        }
+
+        final DiskCache.Entry entry = new DiskCache.Entry(data, System.currentTimeMillis() + ttl);
+        synchronized (this) {
+            putCount++;
+            putInMemory(key, entry);
+        }
+
+        if (diskCache != null) {
+            try {
+                diskCache.put(key, entry);
+            } catch (IOException e) {
+                // the memory tier still has it
+            }
+        }
+    }
+
+    public synchronized void remove(String key) {
+        final DiskCache.Entry entry = entries.remove(key);
+        if (entry != null) {
+            size -= entry.data.length;
+        }
+    }
+
+    public void evictAll() {
+        synchronized (this) {
+            entries.clear();
+            size = 0;
+        }
+        if (diskCache != null) {
+            diskCache.evictAll();
+        }
+    }
+
+    private void putInMemory(String key, DiskCache.Entry entry) {
+        if (entry.data.length > maxBytes) {
+            return;
+        }
+
+        final DiskCache.Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            size -= previous.data.length;
+        }
+        size += entry.data.length;
+
+        final Iterator<DiskCache.Entry> iterator = entries.values().iterator();
+        while (size > maxBytes && iterator.hasNext()) {
+            size -= iterator.next().data.length;
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getDiskHitCount() {
+        return diskHitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getPutCount() {
+        return putCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ResponseCache[size=%d/%d, hits=%d, diskHits=%d, misses=%d, evictions=%d]",
+            size, maxBytes, hitCount, diskHitCount, missCount, evictionCount);
+    }
+
+    /**
+     * @return The URL with its query parameters sorted and the API key removed
+     */
+    public static String canonicalize(GenericUrl url) {
+        final StringBuilder key = new StringBuilder();
+        key.append(url.getScheme()).append("://").append(url.getHost()).append(url.getRawPath());
+
+        final TreeMap<String, Object> params = new TreeMap<>(url);
+        params.remove("key");
+
+        char separator = '?';
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            final Object value = param.getValue();
+            // a URL parsed from a string has a list of values for each parameter
+            for (Object item : value instanceof Collection ? (Collection<?>) value : Collections.singleton(value)) {
+                key.append(separator).append(param.getKey()).append('=').append(item);
+                separator = '&';
+            }
+        }
+        return key.toString();
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.gfx.googleplaces;
 
 public interface ResultBase {
+    public String getStatus();
     public RequestError getError();
     public void setError(RequestError error);
     public boolean isSuccess();
@@ -0,0 +1,143 @@
+package com.github.gfx.googleplaces;
+
+import com.google.api.client.http.HttpResponseException;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Retries transient failures of API requests and icon downloads, which are all idempotent GETs.
+ * <p/>
+ * A failure is transient if it is an I/O error including a timeout, an HTTP status of 429 or 5xx, or an <code>UNKNOWN_ERROR</code> status.
+ * Retries wait for an exponential backoff with full jitter, i.e. a random time up to the backoff,
+ * so that clients which failed together don't retry together.
+ * <p/>
+ * With hedging, a duplicate request is sent when the first one takes longer than the 95th percentile
+ * of recent latencies of its endpoint, and the first successful response wins.
+ */
+public class RetryPolicy {
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_INITIAL_BACKOFF = 500;
+    public static final long DEFAULT_MAX_BACKOFF = 10 * 1000;
+
+    // latencies kept per endpoint, and how many of them are needed to hedge
+    private static final int LATENCY_SAMPLES = 100;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    private static final double HEDGE_PERCENTILE = 0.95;
+
+    private final Random random = new Random();
+
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+    private long maxBackoff = DEFAULT_MAX_BACKOFF;
+    private boolean hedging;
+
+    private final Map<Endpoint, LatencyWindow> latencies = new EnumMap<>(Endpoint.class);
+
+    public RetryPolicy() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, new LatencyWindow());
+        }
+    }
+
+    /**
+     * @param maxAttempts The number of attempts including the first one, or 1 not to retry
+     */
+    public RetryPolicy setMaxAttempts(int maxAttempts) {
+        assert maxAttempts >= 1;
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param initialBackoff The backoff in milliseconds before the first retry, doubled for each retry up to <code>maxBackoff</code>
+     */
+    public RetryPolicy setBackoff(long initialBackoff, long maxBackoff) {
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        return this;
+    }
+
+    /**
+     * @param hedging true to send a duplicate request when a request is slower than usual
+     */
+    public RetryPolicy setHedging(boolean hedging) {
+        this.hedging = hedging;
+        return this;
+    }
+
+    public boolean isHedging() {
+        return hedging;
+    }
+
+    /**
+     * @param attempt The number of attempts so far, starting from 1
+     * @return Milliseconds to wait before the next attempt
+     */
+    public long getBackoff(int attempt) {
+        final long backoff = Math.min(maxBackoff, initialBackoff << Math.min(attempt - 1, 30));
+        synchronized (random) {
+            return (long) (random.nextDouble() * backoff);
+        }
+    }
+
+    /**
+     * @return true if the request which ended with <code>result</code> may succeed when sent again
+     */
+    public boolean isRetryable(ResultBase result) {
+        final RequestError error = result.getError();
+        if (error == null) {
+            return false;
+        }
+        return isRetryable(error.getParent()) || PlaceDetail.UNKNOWN_ERROR.equals(result.getStatus());
+    }
+
+    public boolean isRetryable(Throwable e) {
+        if (e instanceof HttpResponseException) {
+            final int statusCode = ((HttpResponseException) e).getStatusCode();
+            return statusCode == 429 || statusCode >= 500;
+        }
+        // a cancelled request is never retried, because the caller checks the call before retrying
+        return e instanceof IOException && !(e instanceof RateLimiter.RejectedException);
+    }
+
+    void recordLatency(Endpoint endpoint, long latencyMillis) {
+        latencies.get(endpoint).add(latencyMillis);
+    }
+
+    /**
+     * @return Milliseconds to wait before hedging a request to <code>endpoint</code>, or -1 not to hedge it
+     */
+    public long getHedgeDelay(Endpoint endpoint) {
+        return hedging ? latencies.get(endpoint).percentile(HEDGE_PERCENTILE) : -1;
+    }
+
+    // a ring buffer of recent latencies
+    private static class LatencyWindow {
+        private final long[] samples = new long[LATENCY_SAMPLES];
+        private int count;
+        private int next;
+
+        synchronized void add(long latency) {
+            samples[next] = latency;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        synchronized long percentile(double percentile) {
+            if (count < MIN_LATENCY_SAMPLES) {
+                return -1;
+            }
+            final long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(count - 1, Math.ceil(percentile * count) - 1)];
+        }
+    }
+}
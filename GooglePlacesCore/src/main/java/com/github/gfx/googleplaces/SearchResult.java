@@ -43,6 +43,11 @@ public class SearchResult implements Serializable, Iterable<Place>, ResultBase {
         return results.iterator();
     }
 
+    @Override
+    public String getStatus() {
+        return status;
+    }
+
     @Override
     public RequestError getError() {
         if (error != null) {
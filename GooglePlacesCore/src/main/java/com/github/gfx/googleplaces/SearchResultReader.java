@@ -0,0 +1,84 @@
+package com.github.gfx.googleplaces;
+
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Reads a search response from the token stream, handing each place to a listener as soon as it is parsed.
+ */
+class SearchResultReader {
+    private final JsonParser parser;
+    private final PlaceReader placeReader;
+
+    SearchResultReader(JsonParser parser) {
+        this(parser, null);
+    }
+
+    /**
+     * @param fields Fields of places to read, or null to read all
+     */
+    SearchResultReader(JsonParser parser, Set<PlaceField> fields) {
+        this.parser = parser;
+        placeReader = new PlaceReader(parser, fields);
+    }
+
+    /**
+     * @param listener Receives places one by one, or null to collect them into <code>SearchResult.results</code>
+     */
+    public SearchResult read(GooglePlacesBase.PlaceListener listener) throws IOException {
+        final SearchResult result = new SearchResult();
+        result.results = new ArrayList<>();
+
+        JsonToken token = parser.nextToken();
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("Unexpected token: " + token);
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            token = parser.nextToken();
+
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+
+            switch (name) {
+                case "status":
+                    result.status = parser.getText();
+                    break;
+                case "next_page_token":
+                    result.next_page_token = parser.getText();
+                    break;
+                case "html_attributions":
+                    result.html_attributions = placeReader.readStringList();
+                    break;
+                case "results":
+                    readPlaces(result, listener);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (listener != null) {
+            result.results = Collections.emptyList();
+        }
+        return result;
+    }
+
+    private void readPlaces(SearchResult result, GooglePlacesBase.PlaceListener listener) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            final Place place = placeReader.readPlace();
+            if (listener != null) {
+                listener.onPlace(place);
+            } else {
+                result.results.add(place);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.gfx.googleplaces;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges concurrent calls for the same key into one call, and fans its result out to every caller.
+ * All the callers receive the same result object.
+ * <p/>
+ * Each caller gets its own {@link Ticket}. Cancelling a ticket detaches its listener,
+ * and the shared call is cancelled only when every caller has cancelled.
+ */
+class SingleFlight<K, V> {
+    public interface Listener<V> {
+        void onComplete(V value);
+    }
+
+    private final Map<K, Flight> flights = new HashMap<>();
+
+    /**
+     * Registers <code>listener</code> for the call identified by <code>key</code>.
+     * If the returned ticket {@link Ticket#isLeader() is the leader}, there was no call in flight,
+     * so the caller must start it with {@link Ticket#getSharedCall()} and then call {@link #complete(Ticket, Object)}.
+     */
+    public synchronized Ticket join(K key, Listener<V> listener) {
+        Flight flight = flights.get(key);
+        final boolean leader = flight == null;
+        if (leader) {
+            flight = new Flight(key);
+            flights.put(key, flight);
+        }
+
+        final Ticket ticket = new Ticket(flight, listener, leader);
+        flight.tickets.add(ticket);
+        return ticket;
+    }
+
+    /**
+     * Finishes the call started by <code>leader</code> and notifies all the listeners which have not cancelled.
+     */
+    public void complete(Ticket leader, V value) {
+        final Flight flight = leader.flight;
+        final List<Ticket> tickets;
+        synchronized (this) {
+            if (flights.get(flight.key) == flight) {
+                flights.remove(flight.key);
+            }
+            tickets = new ArrayList<>(flight.tickets);
+            flight.tickets.clear();
+        }
+        for (Ticket ticket : tickets) {
+            ticket.listener.onComplete(value);
+        }
+    }
+
+    private class Flight {
+        final K key;
+        final List<Ticket> tickets = new ArrayList<>(2);
+        final CancellableCall sharedCall = new CancellableCall();
+
+        Flight(K key) {
+            this.key = key;
+        }
+    }
+
+    public class Ticket implements Call {
+        private final Flight flight;
+        private final Listener<V> listener;
+        private final boolean leader;
+
+        private volatile boolean canceled;
+
+        Ticket(Flight flight, Listener<V> listener, boolean leader) {
+            this.flight = flight;
+            this.listener = listener;
+            this.leader = leader;
+        }
+
+        public boolean isLeader() {
+            return leader;
+        }
+
+        /**
+         * @return The call which the leader runs on behalf of every caller
+         */
+        public CancellableCall getSharedCall() {
+            return flight.sharedCall;
+        }
+
+        @Override
+        public void cancel() {
+            boolean abandoned = false;
+            synchronized (SingleFlight.this) {
+                if (canceled) {
+                    return;
+                }
+                canceled = true;
+                flight.tickets.remove(this);
+                if (flight.tickets.isEmpty() && flights.get(flight.key) == flight) {
+                    flights.remove(flight.key);
+                    abandoned = true;
+                }
+            }
+            if (abandoned) {
+                flight.sharedCall.cancel();
+            }
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.gfx.googleplaces;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+// dedupes equal strings while anything refers to them, unlike String#intern() which keeps them forever
+class StringPool {
+    private final WeakHashMap<String, WeakReference<String>> pool = new WeakHashMap<>();
+
+    public synchronized String intern(String s) {
+        final WeakReference<String> ref = pool.get(s);
+        final String pooled = ref != null ? ref.get() : null;
+        if (pooled != null) {
+            return pooled;
+        }
+        pool.put(s, new WeakReference<>(s));
+        return s;
+    }
+
+    public synchronized int size() {
+        return pool.size();
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.gfx.googleplaces;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts bytes of API responses per {@link Endpoint}, before and after decompression.
+ * <p/>
+ * Responses are gzipped because google-http-client sends <code>Accept-Encoding: gzip</code> by default,
+ * and HttpResponse#getContent() inflates them on the fly.
+ * <p/>
+ * Compressed sizes are not measured on the wire; they come from <code>Content-Length</code>.
+ * A response without it counts its decompressed size, so the savings are underestimated rather than overestimated.
+ */
+public class TransferStats {
+    private static final int ENDPOINTS = Endpoint.values().length;
+
+    private final AtomicLongArray responseCounts = new AtomicLongArray(ENDPOINTS);
+    private final AtomicLongArray compressedBytes = new AtomicLongArray(ENDPOINTS);
+    private final AtomicLongArray uncompressedBytes = new AtomicLongArray(ENDPOINTS);
+
+    void record(Endpoint endpoint, long compressed, long uncompressed) {
+        final int i = endpoint.ordinal();
+        responseCounts.incrementAndGet(i);
+        compressedBytes.addAndGet(i, compressed);
+        uncompressedBytes.addAndGet(i, uncompressed);
+    }
+
+    public long getResponseCount(Endpoint endpoint) {
+        return responseCounts.get(endpoint.ordinal());
+    }
+
+    /**
+     * @return Bytes transferred over the network
+     */
+    public long getCompressedBytes(Endpoint endpoint) {
+        return compressedBytes.get(endpoint.ordinal());
+    }
+
+    /**
+     * @return Bytes given to the JSON parser
+     */
+    public long getUncompressedBytes(Endpoint endpoint) {
+        return uncompressedBytes.get(endpoint.ordinal());
+    }
+
+    public void reset() {
+        for (int i = 0; i < ENDPOINTS; i++) {
+            responseCounts.set(i, 0);
+            compressedBytes.set(i, 0);
+            uncompressedBytes.set(i, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("TransferStats[");
+        for (Endpoint endpoint : Endpoint.values()) {
+            if (endpoint.ordinal() > 0) {
+                builder.append(", ");
+            }
+            builder.append(String.format("%s: responses=%d, compressed=%d, uncompressed=%d", endpoint,
+                getResponseCount(endpoint), getCompressedBytes(endpoint), getUncompressedBytes(endpoint)));
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.gfx.googleplaces.test;
+
+import junit.framework.TestCase;
+
+import com.github.gfx.googleplaces.Call;
+import com.github.gfx.googleplaces.GooglePlacesClient;
+import com.github.gfx.googleplaces.RequestError;
+import com.github.gfx.googleplaces.SearchResult;
+import com.google.api.client.json.Json;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class CancelTest extends TestCase {
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    @Override
+    public void tearDown() {
+        released.countDown();
+    }
+
+    private static Call search(GooglePlacesClient client, final CountDownLatch called) {
+        return client.textSearch("foo", false)
+            .setErrorListener(new GooglePlacesClient.ErrorListener() {
+                @Override
+                public void onError(RequestError error) {
+                    called.countDown();
+                }
+            })
+            .get(new GooglePlacesClient.ResultListener<SearchResult>() {
+                @Override
+                public void onComplete(SearchResult result) {
+                    called.countDown();
+                }
+            });
+    }
+
+    public void testCancelSuppressesDelivery() throws InterruptedException {
+        final FakeTransport transport = new FakeTransport(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                return FakeTransport.json("{\"status\":\"OK\",\"results\":[]}");
+            }
+        }, released);
+        final GooglePlacesClient client = new GooglePlacesClient("XXX", transport, new GsonFactory());
+
+        final CountDownLatch called = new CountDownLatch(1);
+        final Call call = search(client, called);
+        while (transport.getRequestCount() == 0) {
+            Thread.sleep(10); // until the request is blocked in the transport
+        }
+        call.cancel();
+        assertTrue(call.isCanceled());
+        released.countDown();
+
+        assertFalse("a cancelled request calls no listener", called.await(500, TimeUnit.MILLISECONDS));
+    }
+
+    public void testCancelAbortsReadInProgress() throws InterruptedException {
+        final CountDownLatch reading = new CountDownLatch(1);
+        final CountDownLatch disconnected = new CountDownLatch(1);
+        final FakeTransport transport = new FakeTransport(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                // a response whose body stalls until it is disconnected
+                final MockLowLevelHttpResponse response = new MockLowLevelHttpResponse() {
+                    @Override
+                    public void disconnect() throws IOException {
+                        disconnected.countDown();
+                    }
+                };
+                response.setStatusCode(200);
+                response.setContentType(Json.MEDIA_TYPE);
+                response.setContent(new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        reading.countDown();
+                        try {
+                            disconnected.await(30, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            throw new IOException(e);
+                        }
+                        throw new IOException("Socket closed");
+                    }
+                });
+                return response;
+            }
+        });
+        final GooglePlacesClient client = new GooglePlacesClient("XXX", transport, new GsonFactory());
+
+        final CountDownLatch called = new CountDownLatch(1);
+        final Call call = search(client, called);
+        assertTrue(reading.await(10, TimeUnit.SECONDS));
+        call.cancel();
+
+        assertTrue("cancel() disconnects the response being read", disconnected.await(5, TimeUnit.SECONDS));
+        assertFalse("a cancelled request calls no listener", called.await(500, TimeUnit.MILLISECONDS));
+        assertEquals("a cancelled request is not retried", 1, transport.getRequestCount());
+    }
+}
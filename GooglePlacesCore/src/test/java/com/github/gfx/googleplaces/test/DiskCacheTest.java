@@ -0,0 +1,134 @@
+package com.github.gfx.googleplaces.test;
+
+import junit.framework.TestCase;
+
+import com.github.gfx.googleplaces.DiskCache;
+import com.github.gfx.googleplaces.ResourceLoader;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class DiskCacheTest extends TestCase {
+    private static final String ICON_URL = "http://maps.gstatic.com/mapfiles/place_api/icons/cafe-71.png";
+    private static final byte[] ICON = {(byte) 0x89, 'P', 'N', 'G'};
+
+    private File directory;
+
+    private final List<String> ifNoneMatches = new ArrayList<>();
+
+    @Override
+    public void setUp() throws IOException {
+        directory = File.createTempFile("DiskCacheTest", "");
+        assertTrue(directory.delete() && directory.mkdir());
+        ifNoneMatches.clear();
+    }
+
+    @Override
+    public void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    private HttpRequestFactory createRequestFactory(final String cacheControl) {
+        return new FakeTransport(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                final String ifNoneMatch = request.getFirstHeaderValue("If-None-Match");
+                ifNoneMatches.add(ifNoneMatch);
+
+                MockLowLevelHttpResponse response = new MockLowLevelHttpResponse();
+                response.addHeader("Cache-Control", cacheControl);
+                response.addHeader("ETag", "\"v1\"");
+                if ("\"v1\"".equals(ifNoneMatch)) {
+                    response.setStatusCode(304);
+                } else {
+                    response.setStatusCode(200);
+                    response.setContentType("image/png");
+                    response.setContent(new ByteArrayInputStream(ICON));
+                }
+                return response;
+            }
+        }).createRequestFactory();
+    }
+
+    public void testPutAndGet() throws IOException {
+        DiskCache cache = new DiskCache(directory, 1024);
+        cache.put("foo", new DiskCache.Entry(ICON, Long.MAX_VALUE, "\"v1\""));
+        cache.close();
+
+        cache = new DiskCache(directory, 1024);
+        final DiskCache.Entry entry = cache.get("foo");
+        assertNotNull("survives reopening", entry);
+        assertTrue(Arrays.equals(ICON, entry.data));
+        assertEquals("\"v1\"", entry.etag);
+        assertNull(cache.get("bar"));
+    }
+
+    public void testEvictsLeastRecentlyUsed() throws IOException {
+        final DiskCache cache = new DiskCache(directory, 300);
+        cache.put("a", new DiskCache.Entry(new byte[100], Long.MAX_VALUE));
+        cache.put("b", new DiskCache.Entry(new byte[100], Long.MAX_VALUE));
+        assertNotNull(cache.get("a"));
+        cache.put("c", new DiskCache.Entry(new byte[100], Long.MAX_VALUE));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertTrue(cache.size() <= 300);
+    }
+
+    public void testFreshEntryIsServedFromDisk() throws IOException {
+        final ResourceLoader loader = new ResourceLoader(createRequestFactory("max-age=3600"), new DiskCache(directory, 1024));
+
+        assertTrue(Arrays.equals(ICON, loader.load(ICON_URL)));
+        assertTrue(Arrays.equals(ICON, loader.load(ICON_URL)));
+        assertEquals("only the first load goes to the network", 1, ifNoneMatches.size());
+    }
+
+    public void testStaleEntryIsRevalidated() throws IOException {
+        final ResourceLoader loader = new ResourceLoader(createRequestFactory("max-age=0"), new DiskCache(directory, 1024));
+
+        assertTrue(Arrays.equals(ICON, loader.load(ICON_URL)));
+        assertTrue(Arrays.equals(ICON, loader.load(ICON_URL)));
+        assertEquals(Arrays.asList(null, "\"v1\""), ifNoneMatches);
+    }
+
+    public void testTransferErrorIsNotHiddenByClosing() {
+        final ResourceLoader loader = new ResourceLoader(new FakeTransport(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                final MockLowLevelHttpResponse response = new MockLowLevelHttpResponse();
+                response.setContentType("image/png");
+                response.setContent(new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        throw new IOException("Socket closed");
+                    }
+                });
+                return response;
+            }
+        }).createRequestFactory(), null);
+
+        try {
+            loader.load(ICON_URL);
+            fail("load() throws the exception of the transfer");
+        } catch (IOException e) {
+            assertEquals("Connection reset", e.getMessage());
+        }
+    }
+}
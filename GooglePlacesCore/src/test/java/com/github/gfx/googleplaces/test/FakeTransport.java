@@ -0,0 +1,107 @@
+package com.github.gfx.googleplaces.test;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.Json;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A transport which answers requests with a {@link Responder}, shared by the tests.
+ * With a blocker, each request stalls inside <code>execute()</code> until the blocker is released,
+ * like a server which is slow to send the response headers.
+ */
+public class FakeTransport extends MockHttpTransport {
+    public interface Responder {
+        /**
+         * @param n The number of the request, starting from 1
+         */
+        MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException;
+    }
+
+    private final Responder responder;
+    private final CountDownLatch blocker;
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    public FakeTransport(Responder responder) {
+        this(responder, null);
+    }
+
+    /**
+     * @param blocker A latch which requests wait for before they are answered, or null
+     */
+    public FakeTransport(Responder responder, CountDownLatch blocker) {
+        this.responder = responder;
+        this.blocker = blocker;
+    }
+
+    /**
+     * @return A transport which answers every request with <code>content</code>
+     */
+    public static FakeTransport respondWith(final String content) {
+        return new FakeTransport(new Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                return json(content);
+            }
+        });
+    }
+
+    @Override
+    public LowLevelHttpRequest buildRequest(final String method, final String url) throws IOException {
+        return new MockLowLevelHttpRequest() {
+            @Override
+            public LowLevelHttpResponse execute() throws IOException {
+                final int n = requestCount.incrementAndGet();
+                if (blocker != null) {
+                    try {
+                        blocker.await(30, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException();
+                    }
+                }
+                return responder.respond(n, url, this);
+            }
+        };
+    }
+
+    /**
+     * @return The number of requests which have been executed, including the ones being blocked
+     */
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    public static MockLowLevelHttpResponse json(String content) throws IOException {
+        return json(200, content);
+    }
+
+    public static MockLowLevelHttpResponse json(int statusCode, String content) throws IOException {
+        return json(statusCode, new ByteArrayInputStream(content.getBytes("UTF-8")));
+    }
+
+    public static MockLowLevelHttpResponse json(int statusCode, InputStream content) {
+        final MockLowLevelHttpResponse response = new MockLowLevelHttpResponse();
+        response.setStatusCode(statusCode);
+        response.setContentType(Json.MEDIA_TYPE);
+        response.setContent(content);
+        return response;
+    }
+
+    /**
+     * @param name A file name in the test resources without <code>.json</code>, e.g. "nearbysearch"
+     */
+    public static InputStream openFixture(String name) {
+        return FakeTransport.class.getResourceAsStream("/" + name + ".json");
+    }
+}
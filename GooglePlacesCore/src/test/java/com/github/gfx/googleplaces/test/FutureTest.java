@@ -0,0 +1,176 @@
+package com.github.gfx.googleplaces.test;
+
+import junit.framework.TestCase;
+
+import com.github.gfx.googleplaces.Dispatcher;
+import com.github.gfx.googleplaces.GooglePlacesClient;
+import com.github.gfx.googleplaces.Place;
+import com.github.gfx.googleplaces.PlaceDetail;
+import com.github.gfx.googleplaces.PlacesFuture;
+import com.github.gfx.googleplaces.RequestError;
+import com.github.gfx.googleplaces.SearchResult;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class FutureTest extends TestCase {
+    private static final String SEARCH_CONTENT = "{\"status\":\"OK\",\"results\":["
+        + "{\"name\":\"foo\",\"reference\":\"ref1\"},{\"name\":\"bar\",\"reference\":\"ref2\"}]}";
+
+    private static final Pattern REFERENCE = Pattern.compile("reference=(\\w+)");
+
+    private GooglePlacesClient createClient(final String searchContent, CountDownLatch blocker) {
+        final HttpTransport transport = new FakeTransport(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                final Matcher matcher = REFERENCE.matcher(url);
+                if (matcher.find()) {
+                    return FakeTransport.json("{\"status\":\"OK\",\"result\":{\"name\":\"detail of " + matcher.group(1) + "\"}}");
+                }
+                return FakeTransport.json(searchContent);
+            }
+        }, blocker);
+        return new GooglePlacesClient("XXX", transport, new GsonFactory());
+    }
+
+    public void testGetAsync() throws Exception {
+        final GooglePlacesClient client = createClient(SEARCH_CONTENT, null);
+
+        final PlacesFuture<SearchResult> future = client.textSearch("foo", false).getAsync();
+        final SearchResult result = future.get(10, TimeUnit.SECONDS);
+
+        assertTrue(future.isDone());
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.size());
+    }
+
+    public void testTransformAsyncFansOutToDetails() throws Exception {
+        final GooglePlacesClient client = createClient(SEARCH_CONTENT, null);
+
+        final PlacesFuture<List<String>> future = client.textSearch("foo", false).getAsync()
+            .transformAsync(new PlacesFuture.AsyncFunction<SearchResult, List<PlaceDetail>>() {
+                @Override
+                public PlacesFuture<List<PlaceDetail>> apply(SearchResult result) {
+                    final List<PlacesFuture<PlaceDetail>> details = new ArrayList<>();
+                    for (Place place : result) {
+                        details.add(client.detail(place.reference, false).getAsync());
+                    }
+                    return PlacesFuture.allOf(details);
+                }
+            })
+            .transform(new PlacesFuture.Function<List<PlaceDetail>, List<String>>() {
+                @Override
+                public List<String> apply(List<PlaceDetail> details) {
+                    final List<String> names = new ArrayList<>();
+                    for (PlaceDetail detail : details) {
+                        names.add(detail.result.name);
+                    }
+                    return names;
+                }
+            });
+
+        assertEquals(Arrays.asList("detail of ref1", "detail of ref2"), future.get(10, TimeUnit.SECONDS));
+    }
+
+    public void testErrorFailsFuture() throws Exception {
+        final GooglePlacesClient client = createClient("{\"status\":\"REQUEST_DENIED\",\"results\":[]}", null);
+
+        final PlacesFuture<Integer> future = client.textSearch("foo", false).getAsync()
+            .transform(new PlacesFuture.Function<SearchResult, Integer>() {
+                @Override
+                public Integer apply(SearchResult result) {
+                    return result.size();
+                }
+            });
+
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("get() throws ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RequestError);
+        }
+    }
+
+    public void testTimeout() throws Exception {
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final GooglePlacesClient client = createClient(SEARCH_CONTENT, blocker);
+
+        final PlacesFuture<SearchResult> future = client.textSearch("foo", false).getAsync()
+            .withTimeout(50, TimeUnit.MILLISECONDS);
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("get() throws ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(((RequestError) e.getCause()).getParent() instanceof TimeoutException);
+        } finally {
+            blocker.countDown();
+        }
+        assertFalse(future.isCancelled());
+    }
+
+    public void testTimeoutWhileNetworkThreadsAreBusy() throws Exception {
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final GooglePlacesClient client = createClient(SEARCH_CONTENT, blocker);
+        client.setDispatcher(Dispatcher.create(1, 1, Dispatcher.DIRECT_EXECUTOR));
+
+        try {
+            // occupies the only network thread until the blocker is released
+            client.textSearch("busy", false).getAsync();
+            final PlacesFuture<SearchResult> future = client.textSearch("foo", false).getAsync()
+                .withTimeout(50, TimeUnit.MILLISECONDS);
+
+            final long start = System.nanoTime();
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("get() throws ExecutionException");
+            } catch (ExecutionException e) {
+                assertTrue(((RequestError) e.getCause()).getParent() instanceof TimeoutException);
+            }
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        } finally {
+            blocker.countDown();
+        }
+    }
+
+    public void testCancelPropagatesToSource() throws Exception {
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final GooglePlacesClient client = createClient(SEARCH_CONTENT, blocker);
+
+        final AtomicBoolean called = new AtomicBoolean();
+        final PlacesFuture<SearchResult> source = client.textSearch("foo", false).getAsync();
+        final PlacesFuture<Integer> derived = source.transform(new PlacesFuture.Function<SearchResult, Integer>() {
+            @Override
+            public Integer apply(SearchResult result) {
+                called.set(true);
+                return result.size();
+            }
+        });
+
+        assertTrue(derived.cancel(true));
+        blocker.countDown();
+
+        assertTrue(source.isCancelled());
+        assertFalse(derived.cancel(true));
+        try {
+            derived.get(10, TimeUnit.SECONDS);
+            fail("get() throws CancellationException");
+        } catch (CancellationException e) {
+            // expected
+        }
+        assertFalse(called.get());
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.gfx.googleplaces.test;
+
+import junit.framework.TestCase;
+
+import com.github.gfx.googleplaces.Endpoint;
+import com.github.gfx.googleplaces.GooglePlacesClient;
+import com.github.gfx.googleplaces.LatencyHistogram;
+import com.github.gfx.googleplaces.MetricsAggregator;
+import com.github.gfx.googleplaces.MetricsListener;
+import com.github.gfx.googleplaces.RequestError;
+import com.github.gfx.googleplaces.RequestMetrics;
+import com.github.gfx.googleplaces.RetryPolicy;
+import com.github.gfx.googleplaces.SearchResult;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class MetricsTest extends TestCase {
+    private static final String OK_CONTENT = "{\"status\":\"OK\",\"results\":[]}";
+
+    public void testHistogramPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram(60L * 60 * 1000 * 1000, 3);
+        for (int i = 1; i <= 10000; i++) {
+            histogram.recordValue(i);
+        }
+
+        assertEquals(10000, histogram.getTotalCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(10000, histogram.getMax());
+        assertEquals(5000.5, histogram.getMean(), 0.01);
+        assertEquals(5000, histogram.getValueAtPercentile(50), 5);
+        assertEquals(9900, histogram.getValueAtPercentile(99), 10);
+        assertEquals(10000, histogram.getValueAtPercentile(100));
+    }
+
+    public void testHistogramKeepsPrecisionOfLargeValues() {
+        final LatencyHistogram histogram = new LatencyHistogram(60L * 60 * 1000 * 1000, 3);
+        histogram.recordValue(1234567);
+        histogram.recordValue(Long.MAX_VALUE); // clamped
+
+        final long p50 = histogram.getValueAtPercentile(50);
+        assertTrue(p50 + " is within 0.1%", Math.abs(p50 - 1234567) <= 1235);
+        assertEquals(60L * 60 * 1000 * 1000, histogram.getMax());
+
+        histogram.reset();
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    public void testRequestMetrics() throws InterruptedException {
+        final HttpTransport transport = new FakeTransport(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                return FakeTransport.json(n == 1 ? 503 : 200, OK_CONTENT);
+            }
+        });
+
+        final AtomicReference<RequestMetrics> lastMetrics = new AtomicReference<>();
+        final MetricsAggregator aggregator = new MetricsAggregator();
+        final GooglePlacesClient client = new GooglePlacesClient("XXX", transport, new GsonFactory())
+            .setRetryPolicy(new RetryPolicy().setBackoff(1, 10))
+            .setMetricsListener(new MetricsListener() {
+                @Override
+                public void onRequestCompleted(RequestMetrics metrics) {
+                    lastMetrics.set(metrics);
+                    aggregator.onRequestCompleted(metrics);
+                }
+            });
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        client.textSearch("foo", false).get(new GooglePlacesClient.ResultListener<SearchResult>() {
+            @Override
+            public void onComplete(SearchResult result) {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        final RequestMetrics metrics = lastMetrics.get();
+        assertEquals(Endpoint.TEXT_SEARCH, metrics.getEndpoint());
+        assertTrue(metrics.isSuccess());
+        assertEquals(SearchResult.OK, metrics.getStatus());
+        assertEquals(2, metrics.getAttempts());
+        assertEquals(1, metrics.getRetryCount());
+        assertFalse(metrics.isCacheHit());
+        assertEquals(OK_CONTENT.length(), metrics.getUncompressedBytes());
+        assertTrue(metrics.getTotalNanos() >= metrics.getTimeToFirstByteNanos() + metrics.getParseNanos());
+
+        assertEquals(1, aggregator.getCount(Endpoint.TEXT_SEARCH, MetricsAggregator.Counter.REQUESTS));
+        assertEquals(1, aggregator.getCount(Endpoint.TEXT_SEARCH, MetricsAggregator.Counter.RETRIES));
+        assertEquals(0, aggregator.getCount(Endpoint.TEXT_SEARCH, MetricsAggregator.Counter.ERRORS));
+        assertEquals(1, aggregator.getHistogram(Endpoint.TEXT_SEARCH, MetricsAggregator.Phase.TOTAL).getTotalCount());
+        assertEquals(0, aggregator.getCount(Endpoint.NEARBY_SEARCH, MetricsAggregator.Counter.REQUESTS));
+        assertTrue(aggregator.toString().startsWith("TEXT_SEARCH"));
+    }
+
+    public void testNetworkPhasesAreOfLastAttempt() throws InterruptedException {
+        final HttpTransport transport = new FakeTransport(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                if (n == 1) {
+                    return FakeTransport.json(200, "{\"status\":\"UNKNOWN_ERROR\",\"results\":[]}");
+                }
+                throw new IOException("Connection reset"); // before any response
+            }
+        });
+
+        final AtomicReference<RequestMetrics> lastMetrics = new AtomicReference<>();
+        final GooglePlacesClient client = new GooglePlacesClient("XXX", transport, new GsonFactory())
+            .setRetryPolicy(new RetryPolicy().setMaxAttempts(2).setBackoff(1, 10))
+            .setMetricsListener(new MetricsListener() {
+                @Override
+                public void onRequestCompleted(RequestMetrics metrics) {
+                    lastMetrics.set(metrics);
+                }
+            });
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        client.textSearch("foo", false)
+            .setErrorListener(new GooglePlacesClient.ErrorListener() {
+                @Override
+                public void onError(RequestError error) {
+                    latch.countDown();
+                }
+            })
+            .get(new GooglePlacesClient.ResultListener<SearchResult>() {
+                @Override
+                public void onComplete(SearchResult result) {
+                    fail("not reached");
+                }
+            });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        final RequestMetrics metrics = lastMetrics.get();
+        assertEquals(2, metrics.getAttempts());
+        assertFalse(metrics.isSuccess());
+        assertEquals("no phase is left from the first attempt", 0, metrics.getUncompressedBytes());
+        assertEquals(0, metrics.getCompressedBytes());
+        assertEquals(0, metrics.getTimeToFirstByteNanos());
+        assertEquals(0, metrics.getParseNanos());
+    }
+}
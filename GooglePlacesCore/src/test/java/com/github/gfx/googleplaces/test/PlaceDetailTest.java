@@ -0,0 +1,171 @@
+package com.github.gfx.googleplaces.test;
+
+import junit.framework.TestCase;
+
+import com.github.gfx.googleplaces.GooglePlacesClient;
+import com.github.gfx.googleplaces.PlaceDetail;
+import com.github.gfx.googleplaces.RequestError;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class PlaceDetailTest extends TestCase {
+    private GooglePlacesClient client;
+
+    private FakeTransport transport;
+
+    @Override
+    public void setUp() {
+        transport = new FakeTransport(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                if (url.contains("reference=missing")) {
+                    return FakeTransport.json("{\"html_attributions\":[],\"status\":\"NOT_FOUND\"}");
+                }
+                return FakeTransport.json(200, FakeTransport.openFixture("details"));
+            }
+        });
+
+        client = new GooglePlacesClient("XXX", transport, new GsonFactory());
+    }
+
+    public void testDetail() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        client.detail("foo", false)
+            .setErrorListener(new GooglePlacesClient.ErrorListener() {
+                @Override
+                public void onError(RequestError error) {
+                    fail("not reached");
+                }
+            })
+            .get(new GooglePlacesClient.ResultListener<PlaceDetail>() {
+                @Override
+                public void onComplete(PlaceDetail detail) {
+                    assertTrue(detail.isSuccess());
+                    assertEquals(PlaceDetail.OK, detail.status);
+
+                    final PlaceDetail.Result result = detail.result;
+                    assertEquals("Google Sydney", result.name);
+                    assertEquals(-33.8669710, result.geometry.location.lat);
+                    assertEquals(6, result.address_components.size());
+                    assertEquals("Pirrama Road", result.address_components.get(1).long_name);
+                    assertEquals(Boolean.TRUE, result.opening_hours.open_now);
+                    assertEquals("0900", result.opening_hours.periods.get(0).open.time);
+                    assertEquals(2048, result.photos.get(0).width);
+                    assertEquals(4.5, result.rating);
+                    assertEquals(1338440552L, result.reviews.get(0).time);
+                    assertEquals("quality", result.reviews.get(0).aspects.get(0).type);
+                    assertEquals("http://www.google.com.au/", result.website);
+
+                    latch.countDown();
+                }
+            });
+
+        boolean timedOut = latch.await(10, TimeUnit.SECONDS);
+        assertTrue("detail calls its callback", timedOut);
+    }
+
+    public void testDetailNotFound() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        client.detail("missing", false)
+            .setErrorListener(new GooglePlacesClient.ErrorListener() {
+                @Override
+                public void onError(RequestError error) {
+                    assertNotNull(error);
+                    latch.countDown();
+                }
+            })
+            .get(new GooglePlacesClient.ResultListener<PlaceDetail>() {
+                @Override
+                public void onComplete(PlaceDetail detail) {
+                    fail("not reached");
+                }
+            });
+
+        boolean timedOut = latch.await(10, TimeUnit.SECONDS);
+        assertTrue("detail calls its error listener", timedOut);
+    }
+
+    public void testDetailBatch() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger detailCount = new AtomicInteger();
+
+        client.details(Arrays.asList("foo", "bar", "foo", "missing"), false)
+            .setParallelism(2)
+            .get(new GooglePlacesClient.BatchListener() {
+                @Override
+                public void onDetail(String reference, PlaceDetail detail) {
+                    assertEquals("Google Sydney", detail.result.name);
+                    detailCount.incrementAndGet();
+                }
+
+                @Override
+                public void onComplete(Map<String, PlaceDetail> details, Map<String, RequestError> errors) {
+                    assertEquals(2, details.size());
+                    assertEquals(1, errors.size());
+                    assertTrue(errors.containsKey("missing"));
+                    assertEquals("details are delivered before onComplete", 2, detailCount.get());
+
+                    latch.countDown();
+                }
+            });
+
+        boolean timedOut = latch.await(10, TimeUnit.SECONDS);
+        assertTrue("details calls its callback", timedOut);
+        assertEquals("repeated references are fetched once", 3, transport.getRequestCount());
+    }
+
+    public void testDetailBatchKeepsInputOrder() throws InterruptedException {
+        final CountDownLatch lastAnswered = new CountDownLatch(1);
+        transport = new FakeTransport(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                if (url.contains("reference=first")) {
+                    // completes after the others
+                    try {
+                        lastAnswered.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                } else if (url.contains("reference=last")) {
+                    lastAnswered.countDown();
+                }
+                if (url.contains("reference=missing")) {
+                    return FakeTransport.json("{\"html_attributions\":[],\"status\":\"NOT_FOUND\"}");
+                }
+                return FakeTransport.json(200, FakeTransport.openFixture("details"));
+            }
+        });
+        client = new GooglePlacesClient("XXX", transport, new GsonFactory());
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Map<String, PlaceDetail>> details = new AtomicReference<>();
+        client.details(Arrays.asList("first", "missing", "middle", "last"), false)
+            .setParallelism(4)
+            .get(new GooglePlacesClient.BatchListener() {
+                @Override
+                public void onDetail(String reference, PlaceDetail detail) {
+                }
+
+                @Override
+                public void onComplete(Map<String, PlaceDetail> result, Map<String, RequestError> errors) {
+                    details.set(result);
+                    latch.countDown();
+                }
+            });
+
+        assertTrue("details calls its callback", latch.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("first", "middle", "last"), new ArrayList<>(details.get().keySet()));
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.gfx.googleplaces.test;
+
+import junit.framework.TestCase;
+
+import com.github.gfx.googleplaces.GooglePlacesClient;
+import com.github.gfx.googleplaces.Place;
+import com.github.gfx.googleplaces.PlaceField;
+import com.github.gfx.googleplaces.PlaceIndex;
+import com.github.gfx.googleplaces.SearchResult;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class PlaceIndexTest extends TestCase {
+    private static Place createPlace(String id, double lat, double lng) {
+        final Place place = new Place();
+        place.id = id;
+        place.geometry = new Place.Geometry();
+        place.geometry.location = new Place.Location();
+        place.geometry.location.lat = lat;
+        place.geometry.location.lng = lng;
+        return place;
+    }
+
+    public void testQueryRadius() {
+        final PlaceIndex index = new PlaceIndex();
+        index.addAll(Arrays.asList(
+            createPlace("a", 35.6812, 139.7671), // Tokyo station
+            createPlace("b", 35.6852, 139.7528), // Imperial palace, about 1.4km away
+            createPlace("c", 35.6586, 139.7454))); // Tokyo tower, about 3.1km away
+
+        final List<Place> places = index.queryRadius(35.6812, 139.7671, 2000);
+        assertEquals(2, places.size());
+        assertEquals("nearest first", "a", places.get(0).id);
+        assertEquals("b", places.get(1).id);
+
+        assertEquals(3, index.queryRadius(35.6812, 139.7671, 5000).size());
+    }
+
+    public void testQueryBox() {
+        final PlaceIndex index = new PlaceIndex();
+        index.addAll(Arrays.asList(
+            createPlace("a", 35.6812, 139.7671),
+            createPlace("b", 35.6852, 139.7528),
+            createPlace("c", 35.6586, 139.7454)));
+
+        assertEquals(2, index.queryBox(35.67, 139.75, 35.69, 139.77).size());
+    }
+
+    public void testReplacesPlacesWithTheSameId() {
+        final PlaceIndex index = new PlaceIndex();
+        index.add(createPlace("a", 35.6812, 139.7671));
+        index.add(createPlace("a", 35.6586, 139.7454));
+
+        assertEquals(1, index.size());
+        assertEquals(0, index.queryRadius(35.6812, 139.7671, 100).size());
+        assertEquals(1, index.queryRadius(35.6586, 139.7454, 100).size());
+    }
+
+    public void testEviction() {
+        final PlaceIndex index = new PlaceIndex();
+        index.addAll(Arrays.asList(
+            createPlace("a", 35.6812, 139.7671),
+            createPlace("b", 34.7025, 135.4959))); // Osaka
+
+        index.evictOutside(35, 139, 36, 140);
+        assertEquals(1, index.size());
+        assertEquals(0, index.queryRadius(34.7025, 135.4959, 1000).size());
+
+        index.evictOlderThan(-1);
+        assertEquals(0, index.size());
+    }
+
+    public void testCoverage() {
+        final PlaceIndex index = new PlaceIndex();
+        index.markCovered(35.6812, 139.7671, 1000);
+
+        assertTrue(index.isCovered(35.6812, 139.7671, 500, 60 * 1000));
+        assertFalse("partially outside", index.isCovered(35.6812, 139.7671, 1500, 60 * 1000));
+        assertFalse("too old", index.isCovered(35.6812, 139.7671, 500, -1));
+    }
+
+    private static void search(GooglePlacesClient client, PlaceField... fields) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final GooglePlacesClient.TextSearchBuilder builder = client.textSearch("foo", false);
+        if (fields.length > 0) {
+            builder.setFields(fields);
+        }
+        builder.get(new GooglePlacesClient.ResultListener<SearchResult>() {
+            @Override
+            public void onComplete(SearchResult result) {
+                latch.countDown();
+            }
+        });
+        assertTrue("textSearch calls its callback", latch.await(10, TimeUnit.SECONDS));
+    }
+
+    public void testProjectedSearchesDoNotReplaceIndexedPlaces() throws InterruptedException {
+        final PlaceIndex index = new PlaceIndex();
+        final GooglePlacesClient client = new GooglePlacesClient("XXX", new FakeTransport(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                return FakeTransport.json(200, FakeTransport.openFixture("textsearch"));
+            }
+        }), new GsonFactory());
+        client.setPlaceIndex(index);
+
+        search(client);
+        final int size = index.size();
+        assertTrue(size > 0);
+
+        search(client, PlaceField.ID, PlaceField.GEOMETRY);
+        search(client, PlaceField.NAME, PlaceField.GEOMETRY);
+
+        assertEquals("no duplicates without ids", size, index.size());
+        for (Place place : index.queryBox(-90, -180, 90, 180)) {
+            assertNotNull("not replaced by a projected place", place.name);
+            assertNotNull(place.icon);
+        }
+    }
+}
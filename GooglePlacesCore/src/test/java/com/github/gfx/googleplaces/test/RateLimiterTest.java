@@ -0,0 +1,147 @@
+package com.github.gfx.googleplaces.test;
+
+import junit.framework.TestCase;
+
+import com.github.gfx.googleplaces.Dispatcher;
+import com.github.gfx.googleplaces.Endpoint;
+import com.github.gfx.googleplaces.GooglePlacesClient;
+import com.github.gfx.googleplaces.PlaceDetail;
+import com.github.gfx.googleplaces.RateLimiter;
+import com.github.gfx.googleplaces.RequestError;
+import com.github.gfx.googleplaces.SearchResult;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RateLimiterTest extends TestCase {
+    private GooglePlacesClient client;
+
+    private FakeTransport transport;
+
+    @Override
+    public void setUp() {
+        transport = new FakeTransport(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                final String status = url.contains("/details/") ? "OVER_QUERY_LIMIT" : "OK";
+                return FakeTransport.json("{\"status\":\"" + status + "\",\"results\":[]}");
+            }
+        });
+
+        client = new GooglePlacesClient("XXX", transport, new GsonFactory());
+    }
+
+    private void search(String query, final AtomicInteger successes, final AtomicInteger errors, final CountDownLatch latch) {
+        client.textSearch(query, false)
+            .setErrorListener(new GooglePlacesClient.ErrorListener() {
+                @Override
+                public void onError(RequestError error) {
+                    errors.incrementAndGet();
+                    latch.countDown();
+                }
+            })
+            .get(new GooglePlacesClient.ResultListener<SearchResult>() {
+                @Override
+                public void onComplete(SearchResult result) {
+                    successes.incrementAndGet();
+                    latch.countDown();
+                }
+            });
+    }
+
+    public void testRejectsBeyondBurst() throws InterruptedException {
+        final RateLimiter limiter = new RateLimiter()
+            .setRate(Endpoint.TEXT_SEARCH, 0.01, 2)
+            .setMaxWait(0);
+        client.setRateLimiter(limiter);
+
+        final CountDownLatch latch = new CountDownLatch(3);
+        final AtomicInteger successes = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+        search("a", successes, errors, latch);
+        search("b", successes, errors, latch);
+        search("c", successes, errors, latch);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(2, successes.get());
+        assertEquals(1, errors.get());
+        assertEquals("a rejected request is not sent", 2, transport.getRequestCount());
+        assertEquals(1, limiter.getRejectedCount(Endpoint.TEXT_SEARCH));
+    }
+
+    public void testDailyQuota() throws InterruptedException {
+        final RateLimiter limiter = new RateLimiter()
+            .setDailyQuota(15); // a text search costs 10
+        client.setRateLimiter(limiter);
+
+        final CountDownLatch latch = new CountDownLatch(2);
+        final AtomicInteger successes = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+        search("a", successes, errors, latch);
+        search("b", successes, errors, latch);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(1, successes.get());
+        assertEquals(1, errors.get());
+        assertEquals(10, limiter.getDailyUsage());
+    }
+
+    public void testWaitingForTokenDoesNotHoldNetworkThread() throws InterruptedException {
+        final RateLimiter limiter = new RateLimiter()
+            .setRate(Endpoint.TEXT_SEARCH, 0.5, 1);
+        client.setRateLimiter(limiter);
+        client.setDispatcher(Dispatcher.create(1, 1, Dispatcher.DIRECT_EXECUTOR));
+
+        final CountDownLatch latch = new CountDownLatch(2);
+        final AtomicInteger successes = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+        search("a", successes, errors, latch);
+        search("b", successes, errors, latch); // waits 2 seconds for a token
+
+        final CountDownLatch nearby = new CountDownLatch(1);
+        final long startedAt = System.currentTimeMillis();
+        client.nearBySearch(35.0, 139.0, 100, false)
+            .get(new GooglePlacesClient.ResultListener<SearchResult>() {
+                @Override
+                public void onComplete(SearchResult result) {
+                    nearby.countDown();
+                }
+            });
+
+        assertTrue(nearby.await(10, TimeUnit.SECONDS));
+        assertTrue("the only network thread is free", System.currentTimeMillis() - startedAt < 1000);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(2, successes.get());
+        assertEquals(1, limiter.getDelayedCount(Endpoint.TEXT_SEARCH));
+    }
+
+    public void testBacksOffOnOverQueryLimit() throws InterruptedException {
+        final RateLimiter limiter = new RateLimiter();
+        client.setRateLimiter(limiter);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        client.detail("foo", false)
+            .setErrorListener(new GooglePlacesClient.ErrorListener() {
+                @Override
+                public void onError(RequestError error) {
+                    latch.countDown();
+                }
+            })
+            .get(new GooglePlacesClient.ResultListener<PlaceDetail>() {
+                @Override
+                public void onComplete(PlaceDetail result) {
+                    fail("not reached");
+                }
+            });
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(1, limiter.getOverQueryLimitCount(Endpoint.DETAILS));
+        assertEquals(RateLimiter.DEFAULT_RATE / 2, limiter.getRate(Endpoint.DETAILS));
+        assertEquals(RateLimiter.DEFAULT_RATE, limiter.getRate(Endpoint.NEARBY_SEARCH));
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.gfx.googleplaces.test;
+
+import junit.framework.TestCase;
+
+import com.github.gfx.googleplaces.DiskCache;
+import com.github.gfx.googleplaces.Endpoint;
+import com.github.gfx.googleplaces.ResponseCache;
+import com.google.api.client.http.GenericUrl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class ResponseCacheTest extends TestCase {
+    private static final String TEXT_SEARCH_URL = "https://maps.googleapis.com/maps/api/place/textsearch/json";
+
+    private File directory;
+
+    @Override
+    public void setUp() throws IOException {
+        directory = File.createTempFile("ResponseCacheTest", "");
+        assertTrue(directory.delete() && directory.mkdir());
+    }
+
+    @Override
+    public void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    private static byte[] bytes(int length) {
+        final byte[] data = new byte[length];
+        Arrays.fill(data, (byte) 'x');
+        return data;
+    }
+
+    public void testCanonicalize() {
+        final String key = ResponseCache.canonicalize(new GenericUrl(TEXT_SEARCH_URL + "?sensor=false&query=foo&key=XXX&language=ja"));
+
+        assertEquals(TEXT_SEARCH_URL + "?language=ja&query=foo&sensor=false", key);
+        assertEquals("the order of parameters and the API key do not matter", key,
+            ResponseCache.canonicalize(new GenericUrl(TEXT_SEARCH_URL + "?key=YYY&language=ja&query=foo&sensor=false")));
+        final GenericUrl builtUrl = new GenericUrl(TEXT_SEARCH_URL);
+        builtUrl.put("query", "foo");
+        builtUrl.put("sensor", false);
+        builtUrl.put("language", "ja");
+        assertEquals("a parsed URL and a built one have the same key", key, ResponseCache.canonicalize(builtUrl));
+        assertFalse(key.equals(ResponseCache.canonicalize(new GenericUrl(TEXT_SEARCH_URL + "?language=ja&query=bar&sensor=false"))));
+    }
+
+    public void testTtlPerEndpoint() throws InterruptedException {
+        final ResponseCache cache = new ResponseCache(1024)
+            .setTtl(Endpoint.TEXT_SEARCH, 50)
+            .setTtl(Endpoint.RADAR_SEARCH, 0);
+
+        cache.put("search", Endpoint.TEXT_SEARCH, bytes(1));
+        cache.put("detail", Endpoint.DETAILS, bytes(1));
+        cache.put("radar", Endpoint.RADAR_SEARCH, bytes(1));
+        assertNotNull(cache.get("search"));
+        assertNull("a TTL of 0 disables caching", cache.get("radar"));
+        assertEquals(2, cache.getPutCount());
+
+        Thread.sleep(100);
+
+        assertNull("expired", cache.get("search"));
+        assertNotNull(cache.get("detail"));
+        assertEquals(1, cache.size());
+    }
+
+    public void testEvictsLeastRecentlyUsedByBytes() {
+        final ResponseCache cache = new ResponseCache(10);
+
+        cache.put("a", Endpoint.DETAILS, bytes(4));
+        cache.put("b", Endpoint.DETAILS, bytes(4));
+        assertNotNull(cache.get("a"));
+        cache.put("c", Endpoint.DETAILS, bytes(4));
+
+        assertNull("the least recently used entry is evicted", cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertEquals(8, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+
+        cache.put("large", Endpoint.DETAILS, bytes(11));
+        assertNull("an entry larger than the cache is not kept", cache.get("large"));
+        assertEquals(8, cache.size());
+    }
+
+    public void testFallsBackToDiskTier() {
+        final DiskCache diskCache = new DiskCache(directory, 1024);
+        new ResponseCache(1024, diskCache).put("a", Endpoint.DETAILS, bytes(4));
+
+        // a new memory tier, e.g. after the process restarts
+        final ResponseCache cache = new ResponseCache(1024, diskCache);
+        assertEquals(4, cache.get("a").length);
+        assertEquals(1, cache.getDiskHitCount());
+        assertEquals(0, cache.getHitCount());
+
+        assertEquals(4, cache.get("a").length);
+        assertEquals("promoted to the memory tier", 1, cache.getHitCount());
+        assertEquals(4, cache.size());
+
+        cache.evictAll();
+        assertNull(cache.get("a"));
+        assertEquals(0, diskCache.size());
+    }
+
+    public void testStats() {
+        final ResponseCache cache = new ResponseCache(1024);
+
+        assertNull(cache.get("a"));
+        cache.put("a", Endpoint.NEARBY_SEARCH, bytes(4));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("a"));
+        cache.remove("a");
+        assertNull(cache.get("a"));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getPutCount());
+        assertEquals(0, cache.getDiskHitCount());
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,203 @@
+package com.github.gfx.googleplaces.test;
+
+import junit.framework.TestCase;
+
+import com.github.gfx.googleplaces.GooglePlacesClient;
+import com.github.gfx.googleplaces.RequestError;
+import com.github.gfx.googleplaces.RetryPolicy;
+import com.github.gfx.googleplaces.SearchResult;
+import com.google.api.client.json.Json;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class RetryPolicyTest extends TestCase {
+    private static final String OK_CONTENT = "{\"status\":\"OK\",\"results\":[]}";
+
+    private FakeTransport transport;
+
+    private GooglePlacesClient createClient(FakeTransport.Responder responder) {
+        transport = new FakeTransport(responder);
+        return new GooglePlacesClient("XXX", transport, new GsonFactory());
+    }
+
+    // returns the error, or null on success
+    private static RequestError search(GooglePlacesClient client, String query) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<RequestError> error = new AtomicReference<>();
+
+        client.textSearch(query, false)
+            .setErrorListener(new GooglePlacesClient.ErrorListener() {
+                @Override
+                public void onError(RequestError e) {
+                    error.set(e);
+                    latch.countDown();
+                }
+            })
+            .get(new GooglePlacesClient.ResultListener<SearchResult>() {
+                @Override
+                public void onComplete(SearchResult result) {
+                    latch.countDown();
+                }
+            });
+
+        assertTrue("textSearch calls its callback", latch.await(10, TimeUnit.SECONDS));
+        return error.get();
+    }
+
+    public void testRetriesTransientFailures() throws InterruptedException {
+        final GooglePlacesClient client = createClient(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                switch (n) {
+                    case 1:
+                        throw new IOException("Connection reset");
+                    case 2:
+                        return FakeTransport.json(503, "Service Unavailable");
+                    case 3:
+                        return FakeTransport.json(200, "{\"status\":\"UNKNOWN_ERROR\",\"results\":[]}");
+                    default:
+                        return FakeTransport.json(200, OK_CONTENT);
+                }
+            }
+        });
+        client.setRetryPolicy(new RetryPolicy().setMaxAttempts(4).setBackoff(1, 10));
+
+        assertNull(search(client, "foo"));
+        assertEquals(4, transport.getRequestCount());
+    }
+
+    public void testRetriesTimeouts() throws InterruptedException {
+        final CountDownLatch neverReleased = new CountDownLatch(1);
+        final GooglePlacesClient client = createClient(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                if (n == 1) {
+                    // a stalled server, which the read timeout of the transport gives up on
+                    try {
+                        neverReleased.await(100, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    throw new SocketTimeoutException("Read timed out");
+                }
+                return FakeTransport.json(200, OK_CONTENT);
+            }
+        });
+        client.setRetryPolicy(new RetryPolicy().setMaxAttempts(2).setBackoff(1, 10));
+
+        assertNull("the retry succeeds", search(client, "foo"));
+        assertEquals(2, transport.getRequestCount());
+    }
+
+    public void testGivesUpAfterMaxAttempts() throws InterruptedException {
+        final GooglePlacesClient client = createClient(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                throw new IOException("Network is unreachable");
+            }
+        });
+        client.setRetryPolicy(new RetryPolicy().setMaxAttempts(3).setBackoff(1, 10));
+
+        assertNotNull(search(client, "foo"));
+        assertEquals(3, transport.getRequestCount());
+    }
+
+    public void testDoesNotRetryClientErrors() throws InterruptedException {
+        final GooglePlacesClient client = createClient(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                return FakeTransport.json(400, "Bad Request");
+            }
+        });
+        client.setRetryPolicy(new RetryPolicy().setBackoff(1, 10));
+
+        assertNotNull(search(client, "foo"));
+        assertEquals(1, transport.getRequestCount());
+    }
+
+    public void testHedging() throws InterruptedException {
+        final int warmUpRequests = 20;
+        final GooglePlacesClient client = createClient(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                if (n != warmUpRequests + 1) {
+                    return FakeTransport.json(200, OK_CONTENT);
+                }
+
+                // a stalled response, which only disconnecting it ends
+                final CountDownLatch disconnected = new CountDownLatch(1);
+                final MockLowLevelHttpResponse response = new MockLowLevelHttpResponse() {
+                    @Override
+                    public void disconnect() throws IOException {
+                        disconnected.countDown();
+                    }
+                };
+                response.setStatusCode(200);
+                response.setContentType(Json.MEDIA_TYPE);
+                response.setContent(new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        try {
+                            disconnected.await(30, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            throw new IOException(e);
+                        }
+                        throw new IOException("Socket closed");
+                    }
+                });
+                return response;
+            }
+        });
+        client.setRetryPolicy(new RetryPolicy().setMaxAttempts(1).setHedging(true));
+
+        for (int i = 0; i < warmUpRequests; i++) {
+            assertNull(search(client, "warm up " + i));
+        }
+
+        final long startedAt = System.currentTimeMillis();
+        assertNull("the hedged request wins", search(client, "foo"));
+        assertTrue(System.currentTimeMillis() - startedAt < 5000);
+        assertEquals(warmUpRequests + 2, transport.getRequestCount());
+    }
+
+    public void testHedgingWhileStalledBeforeHeaders() throws InterruptedException {
+        final int warmUpRequests = 20;
+        final CountDownLatch released = new CountDownLatch(1);
+        final GooglePlacesClient client = createClient(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                if (n == warmUpRequests + 1) {
+                    // stalls inside execute(), before any response exists to be disconnected
+                    try {
+                        released.await(30, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+                return FakeTransport.json(200, OK_CONTENT);
+            }
+        });
+        client.setRetryPolicy(new RetryPolicy().setMaxAttempts(1).setHedging(true));
+
+        try {
+            for (int i = 0; i < warmUpRequests; i++) {
+                assertNull(search(client, "warm up " + i));
+            }
+
+            final long startedAt = System.currentTimeMillis();
+            assertNull("the hedged request wins", search(client, "foo"));
+            assertTrue(System.currentTimeMillis() - startedAt < 5000);
+            assertEquals(warmUpRequests + 2, transport.getRequestCount());
+        } finally {
+            released.countDown();
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.github.gfx.googleplaces.test;
+
+import junit.framework.TestCase;
+
+import com.github.gfx.googleplaces.CompactPlaceList;
+import com.github.gfx.googleplaces.Endpoint;
+import com.github.gfx.googleplaces.GooglePlacesClient;
+import com.github.gfx.googleplaces.Place;
+import com.github.gfx.googleplaces.PlaceField;
+import com.github.gfx.googleplaces.PlaceListOrder;
+import com.github.gfx.googleplaces.RequestError;
+import com.github.gfx.googleplaces.SearchResult;
+import com.github.gfx.googleplaces.TransferStats;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+public class SearchResultTest extends TestCase {
+    private GooglePlacesClient client;
+
+    private InputStream getMockContentByUrl(final String url) throws IOException {
+        String name;
+
+        if (url.contains("/nearbysearch/")) {
+            name = "nearbysearch";
+        } else if (url.contains("/textsearch/")) {
+            name = "textsearch";
+        } else if (url.contains("/radarsearch/")) {
+            name = "radarsearch";
+        } else {
+            throw new RuntimeException("Unexpected url:" + url);
+        }
+
+        return FakeTransport.openFixture(name);
+    }
+
+    @Override
+    public void setUp() {
+        final HttpTransport transport = new FakeTransport(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                return FakeTransport.json(200, getMockContentByUrl(url));
+            }
+        });
+
+        final String apiKey = "XXX";
+        client = new GooglePlacesClient(apiKey, transport, new GsonFactory());
+    }
+
+    public void testNearbySearch() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        client.nearBySearch(0, 0, 1, false)
+            .setLanguage("ja")
+            .setTypes("cafe", "bank")
+            .setRankBy(PlaceListOrder.PROMINENCE)
+            .setOpenNow(true)
+            .setMaxPrice(4)
+            .setMinPrice(0)
+            .setZagatSelected(true)
+            .setErrorListener(new GooglePlacesClient.ErrorListener() {
+                @Override
+                public void onError(RequestError error) {
+                    fail("not reached");
+                }
+            })
+            .get(new GooglePlacesClient.ResultListener<SearchResult>() {
+                @Override
+                public void onComplete(SearchResult placeList) {
+                    assertNotNull(placeList);
+                    assertEquals(20, placeList.size());
+
+                    int n = 0;
+                    for (Place place : placeList) {
+                        n++;
+                    }
+                    assertEquals(20, n);
+
+                    latch.countDown();
+                }
+            });
+
+        boolean timedOut = latch.await(10, TimeUnit.SECONDS);
+        assertTrue("nearBySearch calls its callback", timedOut);
+    }
+
+    public void testTextSearch() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        client.textSearch("foo", false)
+            .setOpenNow(true)
+            .setLanguage("ja")
+            .setMinPrice(0)
+            .setMaxPrice(4)
+            .get(new GooglePlacesClient.ResultListener<SearchResult>() {
+                @Override
+                public void onComplete(SearchResult placeList) {
+                    assertNotNull(placeList);
+                    assertEquals(4, placeList.size());
+
+                    latch.countDown();
+                }
+            });
+
+        boolean timedOut = latch.await(10, TimeUnit.SECONDS);
+        assertTrue("textSearch calls its callback", timedOut);
+    }
+
+    public void testRadarSearch() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        client.radarSearch(0, 0, 100, false)
+            .setOpenNow(true)
+            .setLanguage("ja")
+            .setMinPrice(0)
+            .setMaxPrice(4)
+            .get(new GooglePlacesClient.ResultListener<SearchResult>() {
+                @Override
+                public void onComplete(SearchResult placeList) {
+                    assertNotNull(placeList);
+                    assertEquals(200, placeList.size());
+
+                    latch.countDown();
+                }
+            });
+
+        boolean timedOut = latch.await(10, TimeUnit.SECONDS);
+        assertTrue("textSearch calls its callback", timedOut);
+    }
+
+    public void testRadarSearchWithPlaceListener() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger count = new AtomicInteger();
+
+        client.radarSearch(0, 0, 100, false)
+            .setPlaceListener(new GooglePlacesClient.PlaceListener() {
+                @Override
+                public void onPlace(Place place) {
+                    assertNotNull(place.geometry.location);
+                    count.incrementAndGet();
+                }
+            })
+            .get(new GooglePlacesClient.ResultListener<SearchResult>() {
+                @Override
+                public void onComplete(SearchResult placeList) {
+                    assertEquals(SearchResult.OK, placeList.status);
+                    assertEquals(0, placeList.size());
+                    assertEquals("places are delivered before onComplete", 200, count.get());
+
+                    latch.countDown();
+                }
+            });
+
+        boolean timedOut = latch.await(10, TimeUnit.SECONDS);
+        assertTrue("radarSearch calls its callback", timedOut);
+    }
+
+    public void testRadarSearchCompact() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        client.radarSearch(0, 0, 100, false)
+            .getCompact(new GooglePlacesClient.ResultListener<CompactPlaceList>() {
+                @Override
+                public void onComplete(CompactPlaceList placeList) {
+                    assertEquals(200, placeList.size());
+                    assertEquals("112226e5b074c6d767041d2761863c550d8a5f26", placeList.getId(0));
+                    assertEquals(37.773656, placeList.getLatitude(0));
+                    assertEquals(-122.421534, placeList.getLongitude(0));
+
+                    int n = 0;
+                    for (Place place : placeList) {
+                        assertNotNull(place.reference);
+                        assertNotNull(place.geometry.location);
+                        n++;
+                    }
+                    assertEquals(200, n);
+
+                    latch.countDown();
+                }
+            });
+
+        boolean timedOut = latch.await(10, TimeUnit.SECONDS);
+        assertTrue("radarSearch calls its callback", timedOut);
+    }
+
+    public void testNearbySearchWithFields() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        client.nearBySearch(0, 0, 1, false)
+            .setFields(PlaceField.NAME, PlaceField.GEOMETRY, PlaceField.ICON)
+            .get(new GooglePlacesClient.ResultListener<SearchResult>() {
+                @Override
+                public void onComplete(SearchResult placeList) {
+                    assertEquals(20, placeList.size());
+
+                    for (Place place : placeList) {
+                        assertNotNull(place.name);
+                        assertNotNull(place.geometry.location);
+                        assertNotNull(place.icon);
+                        assertNull(place.reference);
+                        assertNull(place.types);
+                    }
+
+                    latch.countDown();
+                }
+            });
+
+        boolean timedOut = latch.await(10, TimeUnit.SECONDS);
+        assertTrue("nearBySearch calls its callback", timedOut);
+    }
+
+    public void testNearbySearchGetAll() throws InterruptedException {
+        final AtomicInteger invalidTokenResponses = new AtomicInteger();
+        final HttpTransport transport = new FakeTransport(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                if (url.contains("pagetoken=") && invalidTokenResponses.getAndIncrement() == 0) {
+                    // the token is not activated yet
+                    return FakeTransport.json("{\"status\":\"INVALID_REQUEST\",\"results\":[]}");
+                }
+                return FakeTransport.json(200, getMockContentByUrl(url));
+            }
+        });
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger pages = new AtomicInteger();
+        final AtomicInteger places = new AtomicInteger();
+
+        new GooglePlacesClient("XXX", transport, new GsonFactory())
+            .setPageTokenDelay(10)
+            .nearBySearch(0, 0, 1, false)
+            .setErrorListener(new GooglePlacesClient.ErrorListener() {
+                @Override
+                public void onError(RequestError error) {
+                    fail("not reached");
+                }
+            })
+            .getAll(3, new GooglePlacesClient.PageListener() {
+                @Override
+                public void onPage(SearchResult page, boolean hasNextPage) {
+                    assertEquals(20, page.size());
+                    places.addAndGet(page.size());
+
+                    if (pages.incrementAndGet() < 3) {
+                        assertTrue(hasNextPage);
+                    } else {
+                        assertFalse(hasNextPage);
+                        latch.countDown();
+                    }
+                }
+            });
+
+        boolean timedOut = latch.await(10, TimeUnit.SECONDS);
+        assertTrue("getAll calls its callback for each page", timedOut);
+        assertEquals(60, places.get());
+        assertEquals("an inactive page token is retried", 3, invalidTokenResponses.get());
+    }
+
+    public void testNearbySearchGzip() throws Exception {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+        final InputStream in = getMockContentByUrl("/nearbysearch/");
+        final byte[] buffer = new byte[4096];
+        int n;
+        long rawSize = 0;
+        while ((n = in.read(buffer)) != -1) {
+            gzip.write(buffer, 0, n);
+            rawSize += n;
+        }
+        in.close();
+        gzip.close();
+
+        final HttpTransport transport = new FakeTransport(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                final MockLowLevelHttpResponse response = FakeTransport.json(200, new ByteArrayInputStream(compressed.toByteArray()));
+                response.setContentEncoding("gzip");
+                response.setContentLength(compressed.size());
+                response.addHeader("Content-Length", String.valueOf(compressed.size()));
+                return response;
+            }
+        });
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final GooglePlacesClient gzipClient = new GooglePlacesClient("XXX", transport, new GsonFactory());
+        gzipClient.nearBySearch(0, 0, 1, false)
+            .get(new GooglePlacesClient.ResultListener<SearchResult>() {
+                @Override
+                public void onComplete(SearchResult placeList) {
+                    assertEquals(20, placeList.size());
+                    latch.countDown();
+                }
+            });
+
+        boolean timedOut = latch.await(10, TimeUnit.SECONDS);
+        assertTrue("nearBySearch calls its callback", timedOut);
+
+        final TransferStats stats = gzipClient.getTransferStats();
+        assertEquals(1, stats.getResponseCount(Endpoint.NEARBY_SEARCH));
+        assertEquals(compressed.size(), stats.getCompressedBytes(Endpoint.NEARBY_SEARCH));
+        assertEquals("counted on the inflated stream", rawSize, stats.getUncompressedBytes(Endpoint.NEARBY_SEARCH));
+        assertTrue(rawSize > compressed.size());
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.gfx.googleplaces.test;
+
+import junit.framework.TestCase;
+
+import com.github.gfx.googleplaces.Call;
+import com.github.gfx.googleplaces.GooglePlacesClient;
+import com.github.gfx.googleplaces.RequestError;
+import com.github.gfx.googleplaces.SearchResult;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class SingleFlightTest extends TestCase {
+    private static final int CALLERS = 5;
+
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    private FakeTransport transport;
+
+    private GooglePlacesClient createClient(final int statusCode) {
+        transport = new FakeTransport(new FakeTransport.Responder() {
+            @Override
+            public MockLowLevelHttpResponse respond(int n, String url, MockLowLevelHttpRequest request) throws IOException {
+                return FakeTransport.json(statusCode, "{\"status\":\"OK\",\"results\":[]}");
+            }
+        }, released);
+        return new GooglePlacesClient("XXX", transport, new GsonFactory()).setRetryPolicy(null);
+    }
+
+    @Override
+    public void tearDown() {
+        released.countDown();
+    }
+
+    private static class Receiver implements GooglePlacesClient.ResultListener<SearchResult>, GooglePlacesClient.ErrorListener {
+        final CountDownLatch latch = new CountDownLatch(1);
+        volatile SearchResult result;
+        volatile RequestError error;
+
+        @Override
+        public void onComplete(SearchResult result) {
+            this.result = result;
+            latch.countDown();
+        }
+
+        @Override
+        public void onError(RequestError error) {
+            this.error = error;
+            latch.countDown();
+        }
+    }
+
+    private List<Receiver> searchConcurrently(GooglePlacesClient client) throws InterruptedException {
+        final List<Receiver> receivers = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            final Receiver receiver = new Receiver();
+            client.textSearch("foo", false).setErrorListener(receiver).get(receiver);
+            receivers.add(receiver);
+        }
+        released.countDown();
+
+        for (Receiver receiver : receivers) {
+            assertTrue("every caller is called back", receiver.latch.await(10, TimeUnit.SECONDS));
+        }
+        return receivers;
+    }
+
+    public void testIdenticalSearchesShareOneRequest() throws InterruptedException {
+        final List<Receiver> receivers = searchConcurrently(createClient(200));
+
+        assertEquals(1, transport.getRequestCount());
+        for (Receiver receiver : receivers) {
+            assertNull(receiver.error);
+            assertSame("every caller receives the same result", receivers.get(0).result, receiver.result);
+        }
+    }
+
+    public void testErrorIsDeliveredToEveryCaller() throws InterruptedException {
+        final List<Receiver> receivers = searchConcurrently(createClient(500));
+
+        assertEquals(1, transport.getRequestCount());
+        for (Receiver receiver : receivers) {
+            assertNull(receiver.result);
+            assertNotNull(receiver.error);
+        }
+    }
+
+    public void testCancelledCallerIsNotCalledBack() throws InterruptedException {
+        final GooglePlacesClient client = createClient(200);
+        final Receiver cancelled = new Receiver();
+        final Call call = client.textSearch("foo", false).setErrorListener(cancelled).get(cancelled);
+        final Receiver receiver = new Receiver();
+        client.textSearch("foo", false).setErrorListener(receiver).get(receiver);
+
+        call.cancel();
+        released.countDown();
+
+        assertTrue(receiver.latch.await(10, TimeUnit.SECONDS));
+        assertNotNull("the other caller keeps the shared request", receiver.result);
+        assertFalse(cancelled.latch.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, transport.getRequestCount());
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.gfx.googleplaces.okhttp;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.util.StreamingContent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+
+class OkHttpRequest extends LowLevelHttpRequest {
+    private final HttpURLConnection connection;
+
+    OkHttpRequest(HttpURLConnection connection) {
+        this.connection = connection;
+        connection.setInstanceFollowRedirects(false); // HttpRequest follows redirects by itself
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        connection.addRequestProperty(name, value);
+    }
+
+    @Override
+    public void setTimeout(int connectTimeout, int readTimeout) {
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+    }
+
+    @Override
+    public LowLevelHttpResponse execute() throws IOException {
+        final StreamingContent content = getStreamingContent();
+        if (content != null) {
+            if (getContentType() != null) {
+                addHeader("Content-Type", getContentType());
+            }
+            if (getContentEncoding() != null) {
+                addHeader("Content-Encoding", getContentEncoding());
+            }
+
+            final long contentLength = getContentLength();
+            final String method = connection.getRequestMethod();
+            if (method.equals("POST") || method.equals("PUT")) {
+                connection.setDoOutput(true);
+                if (contentLength >= 0 && contentLength <= Integer.MAX_VALUE) {
+                    connection.setFixedLengthStreamingMode((int) contentLength);
+                } else {
+                    connection.setChunkedStreamingMode(0);
+                }
+                final OutputStream out = connection.getOutputStream();
+                try {
+                    content.writeTo(out);
+                } finally {
+                    out.close();
+                }
+            } else if (contentLength != 0) {
+                throw new IllegalArgumentException(method + " with non-zero content length is not supported");
+            }
+        }
+        return new OkHttpResponse(connection);
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.gfx.googleplaces.okhttp;
+
+import com.google.api.client.http.LowLevelHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+class OkHttpResponse extends LowLevelHttpResponse {
+    private final HttpURLConnection connection;
+    private final int statusCode;
+    private final String reasonPhrase;
+    private final List<String> headerNames = new ArrayList<>();
+    private final List<String> headerValues = new ArrayList<>();
+
+    OkHttpResponse(HttpURLConnection connection) throws IOException {
+        this.connection = connection;
+        final int code = connection.getResponseCode();
+        statusCode = code == -1 ? 0 : code;
+        reasonPhrase = connection.getResponseMessage();
+
+        for (Map.Entry<String, List<String>> entry : connection.getHeaderFields().entrySet()) {
+            final String name = entry.getKey();
+            if (name == null) {
+                continue; // the status line
+            }
+            for (String value : entry.getValue()) {
+                if (value != null) {
+                    headerNames.add(name);
+                    headerValues.add(value);
+                }
+            }
+        }
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        try {
+            return connection.getInputStream();
+        } catch (IOException e) {
+            return connection.getErrorStream();
+        }
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return connection.getContentEncoding();
+    }
+
+    @Override
+    public long getContentLength() {
+        final String contentLength = connection.getHeaderField("Content-Length");
+        return contentLength != null ? Long.parseLong(contentLength) : -1;
+    }
+
+    @Override
+    public String getContentType() {
+        return connection.getHeaderField("Content-Type");
+    }
+
+    @Override
+    public String getStatusLine() {
+        final String statusLine = connection.getHeaderField(0);
+        return statusLine != null && statusLine.startsWith("HTTP/") ? statusLine : null;
+    }
+
+    @Override
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    @Override
+    public String getReasonPhrase() {
+        return reasonPhrase;
+    }
+
+    @Override
+    public int getHeaderCount() {
+        return headerNames.size();
+    }
+
+    @Override
+    public String getHeaderName(int index) {
+        return headerNames.get(index);
+    }
+
+    @Override
+    public String getHeaderValue(int index) {
+        return headerValues.get(index);
+    }
+
+    @Override
+    public void disconnect() {
+        connection.disconnect();
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.gfx.googleplaces.okhttp;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Protocol;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+
+/**
+ * An HttpTransport on OkHttp, which multiplexes concurrent requests to the same host over one HTTP/2 or SPDY connection
+ * and keeps its own pool of idle connections.
+ * <p/>
+ * Pass it to <code>new GooglePlaces(apiKey, new OkHttpTransport())</code>.
+ * Unlike <code>NetHttpTransport</code>, whose keep-alive pool is a process-wide setting of <code>HttpURLConnection</code>,
+ * each instance can be given its own pool size.
+ * <p/>
+ * HTTP/2 and SPDY are negotiated only over TLS, so the benchmarks of GooglePlacesBenchmark, which run against
+ * a local HTTP/1.1 server, compare connection pooling with <code>NetHttpTransport</code> but do not measure multiplexing.
+ */
+public class OkHttpTransport extends HttpTransport {
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+    public static final long DEFAULT_KEEP_ALIVE_DURATION = 5 * 60 * 1000;
+
+    private static final String[] SUPPORTED_METHODS = {"DELETE", "GET", "HEAD", "OPTIONS", "POST", "PUT", "TRACE"};
+
+    private final OkHttpClient client;
+
+    public OkHttpTransport() {
+        this(createDefaultClient());
+    }
+
+    /**
+     * @param maxIdleConnections      The maximum number of idle connections kept in the pool of this transport
+     * @param keepAliveDurationMillis How long an idle connection is kept
+     */
+    public OkHttpTransport(int maxIdleConnections, long keepAliveDurationMillis) {
+        this(createDefaultClient(maxIdleConnections, keepAliveDurationMillis));
+    }
+
+    /**
+     * @param client A client configured for timeouts, connection pool and protocols. Timeouts of each request override it.
+     */
+    public OkHttpTransport(OkHttpClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Creates a client which prefers HTTP/2, then SPDY/3, and falls back to HTTP/1.1.
+     */
+    public static OkHttpClient createDefaultClient() {
+        return createDefaultClient(DEFAULT_MAX_IDLE_CONNECTIONS, DEFAULT_KEEP_ALIVE_DURATION);
+    }
+
+    public static OkHttpClient createDefaultClient(int maxIdleConnections, long keepAliveDurationMillis) {
+        final OkHttpClient client = new OkHttpClient();
+        client.setProtocols(Arrays.asList(Protocol.HTTP_2, Protocol.SPDY_3, Protocol.HTTP_11));
+        client.setConnectionPool(new ConnectionPool(maxIdleConnections, keepAliveDurationMillis));
+        return client;
+    }
+
+    public OkHttpClient getClient() {
+        return client;
+    }
+
+    @Override
+    public boolean supportsMethod(String method) {
+        return Arrays.binarySearch(SUPPORTED_METHODS, method) >= 0;
+    }
+
+    @Override
+    protected LowLevelHttpRequest buildRequest(String method, String url) throws IOException {
+        final HttpURLConnection connection = client.open(new URL(url));
+        connection.setRequestMethod(method);
+        return new OkHttpRequest(connection);
+    }
+}
@@ -0,0 +1,155 @@
+package com.github.gfx.googleplaces.okhttp.test;
+
+import junit.framework.TestCase;
+
+import com.github.gfx.googleplaces.okhttp.OkHttpTransport;
+import com.google.api.client.http.ByteArrayContent;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class OkHttpTransportTest extends TestCase {
+    private HttpServer server;
+
+    private HttpRequestFactory requestFactory;
+
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    @Override
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/echo", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                final byte[] body = readAll(exchange.getRequestBody());
+                exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+                exchange.getResponseHeaders().add("X-Method", exchange.getRequestMethod());
+                exchange.getResponseHeaders().add("X-Echo", String.valueOf(exchange.getRequestHeaders().getFirst("X-Test")));
+                final byte[] response = body.length > 0 ? body : "hello".getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, response.length);
+                exchange.getResponseBody().write(response);
+                exchange.close();
+            }
+        });
+        server.createContext("/missing", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                final byte[] response = "not found".getBytes("UTF-8");
+                exchange.sendResponseHeaders(404, response.length);
+                exchange.getResponseBody().write(response);
+                exchange.close();
+            }
+        });
+        server.createContext("/stall", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                // sends the headers and a part of the body, then stalls
+                exchange.sendResponseHeaders(200, 0);
+                final OutputStream out = exchange.getResponseBody();
+                out.write("{".getBytes("UTF-8"));
+                out.flush();
+                try {
+                    released.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    // the test has finished
+                }
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        requestFactory = new OkHttpTransport().createRequestFactory();
+    }
+
+    @Override
+    public void tearDown() {
+        released.countDown();
+        server.stop(0);
+    }
+
+    private GenericUrl url(String path) {
+        return new GenericUrl("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+    public void testGet() throws IOException {
+        final HttpRequest request = requestFactory.buildGetRequest(url("/echo"));
+        request.getHeaders().set("X-Test", "foo");
+        final HttpResponse response = request.execute();
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("text/plain; charset=UTF-8", response.getContentType());
+        assertEquals(Long.valueOf(5), response.getHeaders().getContentLength());
+        assertEquals("GET", response.getHeaders().getFirstHeaderStringValue("X-Method"));
+        assertEquals("request headers are sent", "foo", response.getHeaders().getFirstHeaderStringValue("X-Echo"));
+        assertEquals("hello", response.parseAsString());
+    }
+
+    public void testPost() throws IOException {
+        final HttpResponse response = requestFactory
+            .buildPostRequest(url("/echo"), new ByteArrayContent("text/plain", "posted".getBytes("UTF-8")))
+            .execute();
+
+        assertEquals("POST", response.getHeaders().getFirstHeaderStringValue("X-Method"));
+        assertEquals("posted", response.parseAsString());
+    }
+
+    public void testErrorStatus() throws IOException {
+        try {
+            requestFactory.buildGetRequest(url("/missing")).execute();
+            fail("execute() throws HttpResponseException");
+        } catch (HttpResponseException e) {
+            assertEquals(404, e.getStatusCode());
+            assertEquals("the error body is readable", "not found", e.getContent());
+        }
+    }
+
+    public void testDisconnectEndsBlockingRead() throws Exception {
+        final HttpResponse response = requestFactory.buildGetRequest(url("/stall")).execute();
+        final InputStream content = response.getContent();
+        assertEquals('{', content.read());
+
+        final CountDownLatch readEnded = new CountDownLatch(1);
+        final Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    content.read(); // blocks until disconnected
+                } catch (IOException e) {
+                    // disconnected
+                }
+                readEnded.countDown();
+            }
+        });
+        reader.start();
+
+        Thread.sleep(100);
+        response.disconnect();
+        assertTrue("disconnect() ends a read which is blocked", readEnded.await(5, TimeUnit.SECONDS));
+    }
+}
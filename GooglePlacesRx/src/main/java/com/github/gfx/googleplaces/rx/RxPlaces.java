@@ -0,0 +1,73 @@
+package com.github.gfx.googleplaces.rx;
+
+import com.github.gfx.googleplaces.GooglePlacesBase;
+import com.github.gfx.googleplaces.PlacesFuture;
+import com.github.gfx.googleplaces.RequestError;
+
+import rx.Observable;
+import rx.Subscriber;
+import rx.functions.Action0;
+import rx.subscriptions.Subscriptions;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Adapts requests to RxJava Observables, e.g.
+ * <code>RxPlaces.observe(places.textSearch(query, false))</code>.
+ * <p/>
+ * The request is sent on each subscription and cancelled on unsubscription.
+ * Items are emitted in the callback executor of the dispatcher; errors are {@link RequestError}s.
+ */
+public class RxPlaces {
+    private RxPlaces() {
+    }
+
+    public static <T> Observable<T> observe(final GooglePlacesBase.AsyncRequest<T> request) {
+        return Observable.create(new Observable.OnSubscribe<T>() {
+            @Override
+            public void call(final Subscriber<? super T> subscriber) {
+                final PlacesFuture<T> future = request.getAsync();
+                subscriber.add(Subscriptions.create(new Action0() {
+                    @Override
+                    public void call() {
+                        future.cancel();
+                    }
+                }));
+                future.addListener(new GooglePlacesBase.ResultListener<T>() {
+                    @Override
+                    public void onComplete(T result) {
+                        if (!subscriber.isUnsubscribed()) {
+                            subscriber.onNext(result);
+                            subscriber.onCompleted();
+                        }
+                    }
+                }, new GooglePlacesBase.ErrorListener() {
+                    @Override
+                    public void onError(RequestError error) {
+                        if (!subscriber.isUnsubscribed()) {
+                            subscriber.onError(error);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @return An Observable of the result of <code>future</code>, which is cancelled on unsubscription.
+     * It can be subscribed only once, because the future is a single request; a second subscriber gets
+     * an <code>IllegalStateException</code>. Use {@link #observe(GooglePlacesBase.AsyncRequest)} for multiple subscribers.
+     */
+    public static <T> Observable<T> from(final PlacesFuture<T> future) {
+        final AtomicBoolean subscribed = new AtomicBoolean();
+        return observe(new GooglePlacesBase.AsyncRequest<T>() {
+            @Override
+            public PlacesFuture<T> getAsync() {
+                if (!subscribed.compareAndSet(false, true)) {
+                    throw new IllegalStateException("An Observable from a PlacesFuture can be subscribed only once");
+                }
+                return future;
+            }
+        });
+    }
+}
@@ -0,0 +1,165 @@
+package com.github.gfx.googleplaces.rx.test;
+
+import junit.framework.TestCase;
+
+import com.github.gfx.googleplaces.Dispatcher;
+import com.github.gfx.googleplaces.GooglePlacesClient;
+import com.github.gfx.googleplaces.PlacesFuture;
+import com.github.gfx.googleplaces.RequestError;
+import com.github.gfx.googleplaces.SearchResult;
+import com.github.gfx.googleplaces.rx.RxPlaces;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.Json;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+
+import rx.Observable;
+import rx.Subscriber;
+import rx.Subscription;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RxPlacesTest extends TestCase {
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    private volatile int statusCode = 200;
+
+    private GooglePlacesClient client;
+
+    @Override
+    public void setUp() {
+        final MockHttpTransport transport = new MockHttpTransport() {
+            @Override
+            public LowLevelHttpRequest buildRequest(String method, String url) throws IOException {
+                return new MockLowLevelHttpRequest() {
+                    @Override
+                    public LowLevelHttpResponse execute() throws IOException {
+                        requestCount.incrementAndGet();
+                        try {
+                            released.await(30, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            throw new InterruptedIOException();
+                        }
+                        final MockLowLevelHttpResponse response = new MockLowLevelHttpResponse();
+                        response.setStatusCode(statusCode);
+                        response.setContentType(Json.MEDIA_TYPE);
+                        response.setContent("{\"status\":\"OK\",\"results\":[]}");
+                        return response;
+                    }
+                };
+            }
+        };
+        client = new GooglePlacesClient("XXX", transport, new GsonFactory())
+            .setDispatcher(Dispatcher.create(Dispatcher.DIRECT_EXECUTOR))
+            .setRetryPolicy(null);
+    }
+
+    @Override
+    public void tearDown() {
+        released.countDown();
+    }
+
+    private static class TestSubscriber<T> extends Subscriber<T> {
+        final CountDownLatch terminated = new CountDownLatch(1);
+        volatile T value;
+        volatile Throwable error;
+        volatile boolean completed;
+
+        @Override
+        public void onNext(T value) {
+            this.value = value;
+        }
+
+        @Override
+        public void onCompleted() {
+            completed = true;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            error = e;
+            terminated.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("the Observable terminates", terminated.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private void awaitRequests(int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10 * 1000;
+        while (requestCount.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, requestCount.get());
+    }
+
+    public void testObserveSendsRequestOnEachSubscription() throws InterruptedException {
+        released.countDown();
+        final Observable<SearchResult> observable = RxPlaces.observe(client.textSearch("foo", false));
+        assertEquals("nothing is sent until subscribed", 0, requestCount.get());
+
+        for (int i = 1; i <= 2; i++) {
+            final TestSubscriber<SearchResult> subscriber = new TestSubscriber<>();
+            observable.subscribe(subscriber);
+            subscriber.await();
+
+            assertNull(subscriber.error);
+            assertTrue(subscriber.completed);
+            assertTrue(subscriber.value.isSuccess());
+            assertEquals(i, requestCount.get());
+        }
+    }
+
+    public void testError() throws InterruptedException {
+        statusCode = 400;
+        released.countDown();
+        final TestSubscriber<SearchResult> subscriber = new TestSubscriber<>();
+        RxPlaces.observe(client.textSearch("foo", false)).subscribe(subscriber);
+        subscriber.await();
+
+        assertNull(subscriber.value);
+        assertFalse(subscriber.completed);
+        assertTrue(subscriber.error instanceof RequestError);
+    }
+
+    public void testUnsubscribeCancelsRequest() throws InterruptedException {
+        final PlacesFuture<SearchResult> future = client.textSearch("foo", false).getAsync();
+        final TestSubscriber<SearchResult> subscriber = new TestSubscriber<>();
+        final Subscription subscription = RxPlaces.from(future).subscribe(subscriber);
+        awaitRequests(1);
+
+        subscription.unsubscribe();
+        assertTrue(future.isCancelled());
+
+        released.countDown();
+        assertFalse("an unsubscribed subscriber receives nothing", subscriber.terminated.await(500, TimeUnit.MILLISECONDS));
+        assertNull(subscriber.value);
+    }
+
+    public void testFromFutureIsSingleSubscriber() throws InterruptedException {
+        released.countDown();
+        final Observable<SearchResult> observable = RxPlaces.from(client.textSearch("foo", false).getAsync());
+
+        final TestSubscriber<SearchResult> first = new TestSubscriber<>();
+        observable.subscribe(first);
+        first.await();
+        assertTrue(first.value.isSuccess());
+
+        final TestSubscriber<SearchResult> second = new TestSubscriber<>();
+        observable.subscribe(second);
+        second.await();
+        assertTrue(second.error instanceof IllegalStateException);
+        assertEquals(1, requestCount.get());
+    }
+}